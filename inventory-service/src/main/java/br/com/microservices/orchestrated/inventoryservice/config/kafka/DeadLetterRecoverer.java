@@ -0,0 +1,70 @@
+package br.com.microservices.orchestrated.inventoryservice.config.kafka;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Publishes failed records to the next retry topic or to the dead letter topic, counting the records
+ * that end up in a dead letter topic.
+ */
+public class DeadLetterRecoverer extends DeadLetterPublishingRecoverer {
+
+    public static final String RETRY_SUFFIX = "-retry";
+    public static final String DLT_SUFFIX = "-dlt";
+
+    public static final String DLT_RECORDS_METRIC = "kafka.dlt.records";
+    private static final String TOPIC_TAG = "topic";
+
+    private final MeterRegistry meterRegistry;
+
+    public DeadLetterRecoverer(Function<ProducerRecord<?, ?>, KafkaOperations<?, ?>> templateResolver,
+                               BiFunction<ConsumerRecord<?, ?>, Exception, TopicPartition> destinationResolver,
+                               MeterRegistry meterRegistry) {
+
+        super(templateResolver, destinationResolver);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Sends straight to the dead letter topic of the record's topic, leaving the partition to the producer.
+     */
+    public DeadLetterRecoverer(KafkaOperations<?, ?> template, MeterRegistry meterRegistry) {
+
+        super(template, (record, exception) -> new TopicPartition(record.topic() + DLT_SUFFIX, -1));
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void publish(ProducerRecord<Object, Object> outRecord, KafkaOperations<Object, Object> kafkaTemplate,
+                           ConsumerRecord<?, ?> inRecord) {
+
+        super.publish(outRecord, kafkaTemplate, inRecord);
+
+        if (outRecord.topic().endsWith(DLT_SUFFIX))
+            this.meterRegistry.counter(DLT_RECORDS_METRIC, TOPIC_TAG, outRecord.topic()).increment();
+    }
+
+    /**
+     * Dead letter record of a send that still failed after the producer's own retries. It goes to the
+     * dead letter topic of its destination, with the exception headers the listeners add to theirs.
+     */
+    public static <K, V> ProducerRecord<K, V> toDeadLetter(ProducerRecord<K, V> record, Throwable cause) {
+
+        var deadLetter = new ProducerRecord<>(record.topic() + DLT_SUFFIX, null, record.key(), record.value(), record.headers());
+        deadLetter.headers().add(KafkaHeaders.DLT_ORIGINAL_TOPIC, record.topic().getBytes(UTF_8));
+        deadLetter.headers().add(KafkaHeaders.DLT_EXCEPTION_FQCN, cause.getClass().getName().getBytes(UTF_8));
+        if (cause.getMessage() != null)
+            deadLetter.headers().add(KafkaHeaders.DLT_EXCEPTION_MESSAGE, cause.getMessage().getBytes(UTF_8));
+        return deadLetter;
+    }
+}
@@ -0,0 +1,26 @@
+package br.com.microservices.orchestrated.inventoryservice.config.kafka;
+
+import br.com.microservices.orchestrated.inventoryservice.core.dto.Event;
+import br.com.microservices.orchestrated.inventoryservice.core.utils.EventCodec;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+@RequiredArgsConstructor
+public class EventDeserializer implements Deserializer<Event> {
+
+    private final EventCodec eventCodec;
+
+    @Override
+    public Event deserialize(String topic, byte[] data) {
+
+        var event = this.eventCodec.decode(data);
+
+        // Failing here lets the error handling deserializer send the record to the dead letter topic
+        // instead of handing a null event to the listener.
+        if (event == null)
+            throw new SerializationException("Could not decode event from topic " + topic);
+
+        return event;
+    }
+}
@@ -0,0 +1,61 @@
+package br.com.microservices.orchestrated.inventoryservice.config.tracing;
+
+import br.com.microservices.orchestrated.inventoryservice.core.model.Outbox;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.springframework.util.ObjectUtils.isEmpty;
+
+/**
+ * Carries the trace of the hop that wrote an outbox row over to the relay thread that sends it, so the
+ * saga trace is not cut at the outbox.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxTracing {
+
+    private static final String TRACE_PARENT = "traceparent";
+    private static final String RELAY_SPAN = "outbox relay";
+
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    /**
+     * The W3C traceparent of the span in scope, or null outside a trace.
+     */
+    public String currentTraceParent() {
+
+        var context = this.tracer.currentTraceContext().context();
+        if (context == null)
+            return null;
+
+        var carrier = new HashMap<String, String>();
+        this.propagator.inject(context, carrier, Map::put);
+        return carrier.get(TRACE_PARENT);
+    }
+
+    /**
+     * Starts a span continuing the row's trace, or returns null when the row was written outside one.
+     */
+    public Span continueTrace(Outbox outbox) {
+
+        if (isEmpty(outbox.getTraceParent()))
+            return null;
+
+        return this.propagator
+                .extract(outbox, (carrier, key) -> TRACE_PARENT.equals(key) ? carrier.getTraceParent() : null)
+                .name(RELAY_SPAN)
+                .start();
+    }
+
+    public Tracer.SpanInScope withSpan(Span span) {
+
+        return this.tracer.withSpan(span);
+    }
+}
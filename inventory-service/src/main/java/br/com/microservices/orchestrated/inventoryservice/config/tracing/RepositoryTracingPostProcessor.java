@@ -0,0 +1,71 @@
+package br.com.microservices.orchestrated.inventoryservice.config.tracing;
+
+import io.micrometer.tracing.Tracer;
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.util.function.Supplier;
+
+/**
+ * Adds a span around every repository call made while a span is in scope, so queries show up as
+ * children of the saga hop that issued them. Calls outside a trace, like the scheduled outbox polls,
+ * are left alone instead of starting traces of their own.
+ */
+@Component
+public class RepositoryTracingPostProcessor implements BeanPostProcessor {
+
+    private final Supplier<Tracer> tracer;
+
+    public RepositoryTracingPostProcessor(ObjectProvider<Tracer> tracer) {
+
+        this.tracer = SingletonSupplier.of(tracer::getObject);
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean)
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, information) -> proxyFactory.addAdvice(
+                            new RepositoryTracingInterceptor(this.tracer, information.getRepositoryInterface().getSimpleName()))));
+
+        return bean;
+    }
+
+    @RequiredArgsConstructor
+    private static class RepositoryTracingInterceptor implements MethodInterceptor {
+
+        private final Supplier<Tracer> tracer;
+        private final String repositoryName;
+
+        @Override
+        @SuppressWarnings("try")
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+
+            var tracer = this.tracer.get();
+            if (tracer.currentSpan() == null)
+                return invocation.proceed();
+
+            var span = tracer
+                    .nextSpan()
+                    .name(this.repositoryName + "." + invocation.getMethod().getName())
+                    .tag("repository", this.repositoryName)
+                    .start();
+
+            try (var ignored = tracer.withSpan(span)) {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                span.error(e);
+                throw e;
+            } finally {
+                span.end();
+            }
+        }
+    }
+}
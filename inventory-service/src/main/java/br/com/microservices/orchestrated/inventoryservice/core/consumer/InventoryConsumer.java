@@ -1,10 +1,16 @@
 package br.com.microservices.orchestrated.inventoryservice.core.consumer;
 
+import br.com.microservices.orchestrated.inventoryservice.config.kafka.RecordDispatcher;
+import br.com.microservices.orchestrated.inventoryservice.core.dto.Event;
 import br.com.microservices.orchestrated.inventoryservice.core.service.InventoryService;
-import br.com.microservices.orchestrated.inventoryservice.core.utils.JsonUtil;
+import br.com.microservices.orchestrated.inventoryservice.core.utils.DatabaseBulkhead;
+import br.com.microservices.orchestrated.inventoryservice.core.utils.SagaLog;
+import br.com.microservices.orchestrated.inventoryservice.core.utils.SagaMetrics;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
 @Slf4j
@@ -12,18 +18,24 @@ import org.springframework.stereotype.Component;
 @AllArgsConstructor
 public class InventoryConsumer {
 
-    private final JsonUtil jsonUtil;
     private final InventoryService inventoryService;
+    private final SagaMetrics sagaMetrics;
+    private final SagaLog sagaLog;
+    private final DatabaseBulkhead databaseBulkhead;
+    private final RecordDispatcher recordDispatcher;
 
     @KafkaListener(
             groupId = "${spring.kafka.consumer.group-id}",
             topics = "${spring.kafka.topic.inventory-success}"
     )
 
-    public void consumeSuccessEvent(String payload) {
-        log.info("Receiving success event {} from inventory-success topic", payload);
-        var event = jsonUtil.toEvent(payload);
-        this.inventoryService.updateInventory(event);
+    public void consumeSuccessEvent(ConsumerRecord<String, Event> record, Acknowledgment acknowledgment) {
+        var event = record.value();
+        if (this.sagaLog.isSampled(event.getOrderId(), event.getStatus()))
+            log.info("Receiving success event {} from inventory-success topic", this.sagaLog.payload(event));
+        this.sagaMetrics.recordQueueDelay(record);
+        this.recordDispatcher.dispatch(record, acknowledgment, () -> this.sagaMetrics.timeStep(record.topic(), event.getOrderId(),
+                record.serializedValueSize(), () -> this.databaseBulkhead.run(() -> this.inventoryService.updateInventory(event))));
     }
 
     @KafkaListener(
@@ -31,9 +43,12 @@ public class InventoryConsumer {
             topics = "${spring.kafka.topic.inventory-fail}"
     )
 
-    public void consumeFailEvent(String payload) {
-        log.info("Receiving rollback event {} from inventory-fail topic", payload);
-        var event = jsonUtil.toEvent(payload);
-        this.inventoryService.rollbackInventory(event);
+    public void consumeFailEvent(ConsumerRecord<String, Event> record, Acknowledgment acknowledgment) {
+        var event = record.value();
+        if (this.sagaLog.isSampled(event.getOrderId(), event.getStatus()))
+            log.info("Receiving rollback event {} from inventory-fail topic", this.sagaLog.payload(event));
+        this.sagaMetrics.recordQueueDelay(record);
+        this.recordDispatcher.dispatch(record, acknowledgment, () -> this.sagaMetrics.timeStep(record.topic(), event.getOrderId(),
+                record.serializedValueSize(), () -> this.databaseBulkhead.run(() -> this.inventoryService.rollbackInventory(event))));
     }
 }
@@ -25,6 +25,7 @@ public class Event {
     private String source;
     private ESagaStatus status;
     private List<History> eventHistory;
+    private int historySequence;
     private LocalDateTime createdAt;
 
     public void addToHistory(History history) {
@@ -32,6 +33,7 @@ public class Event {
         if (isEmpty(eventHistory))
             eventHistory = new ArrayList<>();
 
+        history.setSequence(++historySequence);
         eventHistory.add(history);
     }
 }
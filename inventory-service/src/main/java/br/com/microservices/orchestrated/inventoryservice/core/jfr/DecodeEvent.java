@@ -0,0 +1,20 @@
+package br.com.microservices.orchestrated.inventoryservice.core.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("saga.Decode")
+@Label("Saga Decode")
+@Description("Kafka payload decoded to an event")
+public class DecodeEvent extends SagaEvent {
+
+    @Label("Format")
+    private String format;
+
+    public void commit(String orderId, String step, int payloadSize, String format) {
+
+        this.format = format;
+        this.commit(orderId, step, payloadSize);
+    }
+}
@@ -0,0 +1,40 @@
+package br.com.microservices.orchestrated.inventoryservice.core.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Change to a product's available quantity made in memory and not yet applied to the inventory table.
+ */
+@Data
+@Builder
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "inventory_journal")
+public class InventoryJournal {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_journal_seq")
+    @SequenceGenerator(name = "inventory_journal_seq", sequenceName = "inventory_journal_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private String productCode;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,25 @@
+package br.com.microservices.orchestrated.inventoryservice.core.repository;
+
+import br.com.microservices.orchestrated.inventoryservice.core.model.InventoryJournal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface InventoryJournalRepository extends JpaRepository<InventoryJournal, Long> {
+
+    /**
+     * Moves the journal into the inventory table in one statement, so exactly the entries deleted are
+     * the ones applied even while new entries are being committed.
+     */
+    @Modifying
+    @Query(value = """
+            WITH flushed AS (
+                DELETE FROM inventory_journal RETURNING product_code, quantity
+            )
+            UPDATE inventory i
+            SET available = i.available + f.quantity
+            FROM (SELECT product_code, sum(quantity) AS quantity FROM flushed GROUP BY product_code) f
+            WHERE i.product_code = f.product_code
+            """, nativeQuery = true)
+    int applyToInventory();
+}
@@ -3,9 +3,10 @@ package br.com.microservices.orchestrated.inventoryservice.core.repository;
 import br.com.microservices.orchestrated.inventoryservice.core.model.Inventory;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-import java.util.Optional;
+import java.util.Collection;
+import java.util.List;
 
-public interface InventoryRepository extends JpaRepository<Inventory, String> {
+public interface InventoryRepository extends JpaRepository<Inventory, Integer>, InventoryReservationRepository {
 
-    Optional<Inventory> findByProductCode(String productCode);
+    List<Inventory> findAllByProductCodeIn(Collection<String> productCodes);
 }
@@ -0,0 +1,19 @@
+package br.com.microservices.orchestrated.inventoryservice.core.repository;
+
+import java.util.Map;
+
+public interface InventoryReservationRepository {
+
+    /**
+     * Takes the quantities from the products' inventory in one guarded update, after locking the rows
+     * in product code order. Returns the quantity left for each product reserved, products unknown or
+     * without enough available are missing.
+     */
+    Map<String, Integer> reserve(Map<String, Integer> quantitiesByProductCode);
+
+    /**
+     * Gives the quantities back to the products' inventory in one update, relative to what is there now,
+     * after locking the rows in product code order.
+     */
+    void release(Map<String, Integer> quantitiesByProductCode);
+}
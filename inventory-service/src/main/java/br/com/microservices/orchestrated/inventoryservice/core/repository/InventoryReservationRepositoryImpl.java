@@ -0,0 +1,87 @@
+package br.com.microservices.orchestrated.inventoryservice.core.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RequiredArgsConstructor
+public class InventoryReservationRepositoryImpl implements InventoryReservationRepository {
+
+    private static final String LOCK = """
+            SELECT product_code
+            FROM inventory
+            WHERE product_code = ANY(?::varchar[])
+            ORDER BY product_code
+            FOR UPDATE
+            """;
+
+    private static final String RESERVE = """
+            UPDATE inventory i
+            SET available = i.available - r.quantity
+            FROM unnest(?::varchar[], ?::int4[]) AS r(product_code, quantity)
+            WHERE i.product_code = r.product_code AND i.available >= r.quantity
+            RETURNING i.product_code, i.available
+            """;
+
+    private static final String RELEASE = """
+            UPDATE inventory i
+            SET available = i.available + r.quantity
+            FROM unnest(?::varchar[], ?::int4[]) AS r(product_code, quantity)
+            WHERE i.product_code = r.product_code
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Map<String, Integer> reserve(Map<String, Integer> quantitiesByProductCode) {
+
+        var available = new HashMap<String, Integer>();
+        if (quantitiesByProductCode.isEmpty())
+            return available;
+
+        var sorted = new TreeMap<>(quantitiesByProductCode);
+        this.lock(sorted);
+        this.jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(RESERVE);
+            statement.setArray(1, connection.createArrayOf("varchar", sorted.keySet().toArray()));
+            statement.setArray(2, connection.createArrayOf("int4", sorted.values().toArray()));
+            return statement;
+        }, resultSet -> {
+            available.put(resultSet.getString("product_code"), resultSet.getInt("available"));
+        });
+        return available;
+    }
+
+    @Override
+    public void release(Map<String, Integer> quantitiesByProductCode) {
+
+        if (quantitiesByProductCode.isEmpty())
+            return;
+
+        var sorted = new TreeMap<>(quantitiesByProductCode);
+        this.lock(sorted);
+        this.jdbcTemplate.update(connection -> {
+            var statement = connection.prepareStatement(RELEASE);
+            statement.setArray(1, connection.createArrayOf("varchar", sorted.keySet().toArray()));
+            statement.setArray(2, connection.createArrayOf("int4", sorted.values().toArray()));
+            return statement;
+        });
+    }
+
+    /**
+     * The update joins against unnest, so the order it locks the rows in is up to the planner. Locking
+     * them first in product code order keeps two orders sharing products from deadlocking each other.
+     */
+    private void lock(TreeMap<String, Integer> quantitiesByProductCode) {
+
+        this.jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(LOCK);
+            statement.setArray(1, connection.createArrayOf("varchar", quantitiesByProductCode.keySet().toArray()));
+            return statement;
+        }, resultSet -> {
+        });
+    }
+}
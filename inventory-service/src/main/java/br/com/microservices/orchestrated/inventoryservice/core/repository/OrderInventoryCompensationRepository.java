@@ -0,0 +1,12 @@
+package br.com.microservices.orchestrated.inventoryservice.core.repository;
+
+import java.util.Map;
+
+public interface OrderInventoryCompensationRepository {
+
+    /**
+     * Marks the order's lines as compensated and returns their quantities per product code. Lines
+     * already compensated are not returned, so a repeated rollback releases nothing.
+     */
+    Map<String, Integer> claimForCompensation(String orderId, String transactionId);
+}
@@ -0,0 +1,31 @@
+package br.com.microservices.orchestrated.inventoryservice.core.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class OrderInventoryCompensationRepositoryImpl implements OrderInventoryCompensationRepository {
+
+    private static final String CLAIM_FOR_COMPENSATION = """
+            UPDATE order_inventory o
+            SET compensated = true, updated_at = now()
+            FROM inventory i
+            WHERE i.id = o.inventory_id AND o.order_id = ? AND o.transaction_id = ? AND NOT o.compensated
+            RETURNING i.product_code, o.order_quantity
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Map<String, Integer> claimForCompensation(String orderId, String transactionId) {
+
+        var quantities = new HashMap<String, Integer>();
+        this.jdbcTemplate.query(CLAIM_FOR_COMPENSATION, resultSet -> {
+            quantities.merge(resultSet.getString("product_code"), resultSet.getInt("order_quantity"), Integer::sum);
+        }, orderId, transactionId);
+        return quantities;
+    }
+}
@@ -1,14 +1,7 @@
 package br.com.microservices.orchestrated.inventoryservice.core.repository;
 
-import br.com.microservices.orchestrated.inventoryservice.core.model.Inventory;
 import br.com.microservices.orchestrated.inventoryservice.core.model.OrderInventory;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-import java.util.List;
-import java.util.Optional;
-
-public interface OrderInventoryRepository extends JpaRepository<OrderInventory, String> {
-
-    Boolean existsByOrderIdAndTransactionId(String orderId, String transactionId);
-    List<OrderInventory> findByOrderIdAndTransactionId(String orderId, String transactionId);
+public interface OrderInventoryRepository extends JpaRepository<OrderInventory, Integer>, OrderInventoryCompensationRepository {
 }
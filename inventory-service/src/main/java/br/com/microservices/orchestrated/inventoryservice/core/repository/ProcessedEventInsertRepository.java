@@ -0,0 +1,10 @@
+package br.com.microservices.orchestrated.inventoryservice.core.repository;
+
+public interface ProcessedEventInsertRepository {
+
+    /**
+     * Claims the order and transaction in the caller's transaction. Returns false when they were
+     * already claimed, waiting for a concurrent claim of the same key to commit or roll back first.
+     */
+    boolean insertIfAbsent(String orderId, String transactionId);
+}
@@ -0,0 +1,21 @@
+package br.com.microservices.orchestrated.inventoryservice.core.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@RequiredArgsConstructor
+public class ProcessedEventInsertRepositoryImpl implements ProcessedEventInsertRepository {
+
+    private static final String INSERT_IF_ABSENT = """
+            INSERT INTO processed_event (order_id, transaction_id, created_at)
+            VALUES (?, ?, now())
+            ON CONFLICT (order_id, transaction_id) DO NOTHING
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean insertIfAbsent(String orderId, String transactionId) {
+        return this.jdbcTemplate.update(INSERT_IF_ABSENT, orderId, transactionId) > 0;
+    }
+}
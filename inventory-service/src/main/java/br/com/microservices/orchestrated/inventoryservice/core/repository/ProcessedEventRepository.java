@@ -0,0 +1,7 @@
+package br.com.microservices.orchestrated.inventoryservice.core.repository;
+
+import br.com.microservices.orchestrated.inventoryservice.core.model.ProcessedEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, Long>, ProcessedEventInsertRepository {
+}
@@ -3,40 +3,49 @@ package br.com.microservices.orchestrated.inventoryservice.core.service;
 import br.com.microservices.orchestrated.inventoryservice.config.exception.ValidationException;
 import br.com.microservices.orchestrated.inventoryservice.core.dto.Event;
 import br.com.microservices.orchestrated.inventoryservice.core.dto.History;
-import br.com.microservices.orchestrated.inventoryservice.core.dto.Order;
 import br.com.microservices.orchestrated.inventoryservice.core.dto.OrderProducts;
 import br.com.microservices.orchestrated.inventoryservice.core.enums.ESagaStatus;
 import br.com.microservices.orchestrated.inventoryservice.core.model.Inventory;
 import br.com.microservices.orchestrated.inventoryservice.core.model.OrderInventory;
-import br.com.microservices.orchestrated.inventoryservice.core.producer.KafkaProducer;
 import br.com.microservices.orchestrated.inventoryservice.core.repository.InventoryRepository;
 import br.com.microservices.orchestrated.inventoryservice.core.repository.OrderInventoryRepository;
-import br.com.microservices.orchestrated.inventoryservice.core.utils.JsonUtil;
+import br.com.microservices.orchestrated.inventoryservice.core.repository.ProcessedEventRepository;
+import br.com.microservices.orchestrated.inventoryservice.core.stock.InventoryStock;
+import br.com.microservices.orchestrated.inventoryservice.core.utils.IdempotencyCache;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @AllArgsConstructor
 public class InventoryService {
 
-    private static final String CURRENT_SOURCE = "PAYMENT_SERVICE";
+    private static final String CURRENT_SOURCE = "INVENTORY_SERVICE";
 
-    private final JsonUtil jsonUtil;
-    private final KafkaProducer kafkaProducer;
+    private final OutboxService outboxService;
     private final InventoryRepository inventoryRepository;
     private final OrderInventoryRepository orderInventoryRepository;
+    private final ProcessedEventRepository processedEventRepository;
+    private final InventoryStock inventoryStock;
+    private final IdempotencyCache idempotencyCache;
 
+    @Transactional
     public void updateInventory(Event event) {
 
         try {
 
             this.checkCurrentValidation(event);
-            this.createOrderInventory(event);
-            this.updateInventory(event.getPayload());
+            this.reserveInventory(event);
             this.handleSuccess(event);
 
         } catch (Exception e) {
@@ -44,62 +53,95 @@ public class InventoryService {
             this.handleFailCurrentNotExecute(event, e.getMessage());
         }
 
-        kafkaProducer.sendEvent(this.jsonUtil.toJson(event));
+        outboxService.enqueue(event);
     }
 
+    /**
+     * Recent duplicates are rejected by the cache, the others by the claim, which is taken before any
+     * stock so two deliveries of the same event can never both reserve.
+     */
     private void checkCurrentValidation(Event event) {
 
-        if (orderInventoryRepository.existsByOrderIdAndTransactionId(event.getPayload().getId(), event.getPayload().getTransactionId()))
+        var orderId = event.getPayload().getId();
+        var transactionId = event.getTransactionId();
+
+        if (idempotencyCache.contains(orderId, transactionId, CURRENT_SOURCE)
+                || !processedEventRepository.insertIfAbsent(orderId, transactionId))
             throw new ValidationException("There's another transactionID for this validation.");
+
+        idempotencyCache.record(orderId, transactionId, CURRENT_SOURCE);
+    }
+
+    /**
+     * The whole order is taken by one guarded update, so concurrent orders can never take more than is
+     * available, and its lines are audited in one batch. Products reserved before another one ran out
+     * are audited too, so the saga rollback releases them.
+     */
+    private void reserveInventory(Event event) {
+
+        var products = event.getPayload().getProducts();
+        var inventories = this.findInventoriesByProductCode(products);
+
+        var quantities = new TreeMap<String, Integer>();
+        products.forEach(product -> quantities.merge(product.getProduct().getCode(), product.getQuantity(), Integer::sum));
+        var reserved = this.inventoryStock.reserve(quantities);
+
+        // Walks each product's lines back from the quantity left, in order, so every line audits its own step.
+        var running = new HashMap<String, Integer>();
+        reserved.forEach((productCode, available) -> running.put(productCode, available + quantities.get(productCode)));
+
+        var orderInventories = products
+                .stream()
+                .filter(product -> running.containsKey(product.getProduct().getCode()))
+                .map(product -> {
+                    var productCode = product.getProduct().getCode();
+                    var oldQuantity = running.get(productCode);
+                    running.put(productCode, oldQuantity - product.getQuantity());
+                    return this.createOrderInventory(event, product, inventories.get(productCode), oldQuantity);
+                })
+                .toList();
+
+        this.orderInventoryRepository.saveAll(orderInventories);
+
+        if (reserved.size() < quantities.size())
+            throw new ValidationException("Product is out of stock!.");
     }
 
-    private void createOrderInventory(Event event) {
-        event
-                .getPayload()
-                .getProducts()
-                .forEach(product -> {
-                    var inventory = this.findInventoryByProductCode(product.getProduct().getCode());
-                    var orderInventory = this.createOrderInventory(event, product, inventory);
-                    this.orderInventoryRepository.save(orderInventory);
+    private Map<String, Inventory> findInventoriesByProductCode(List<OrderProducts> products) {
+
+        var productCodes = products
+                .stream()
+                .map(product -> product.getProduct().getCode())
+                .collect(Collectors.toSet());
+
+        var inventories = this.inventoryRepository
+                .findAllByProductCodeIn(productCodes)
+                .stream()
+                .collect(Collectors.toMap(Inventory::getProductCode, Function.identity()));
+
+        productCodes
+                .stream()
+                .filter(productCode -> !inventories.containsKey(productCode))
+                .findFirst()
+                .ifPresent(productCode -> {
+                    throw new ValidationException("Inventory not found by informed product: ".concat(productCode));
                 });
+
+        return inventories;
     }
 
-    private OrderInventory createOrderInventory(Event event, OrderProducts orderProducts, Inventory inventory) {
+    private OrderInventory createOrderInventory(Event event, OrderProducts orderProducts, Inventory inventory, int oldQuantity) {
         return OrderInventory
                 .builder()
                 .inventory(inventory)
-                .oldQuantity(inventory.getAvailable())
+                .oldQuantity(oldQuantity)
                 .orderQuantity(orderProducts.getQuantity())
-                .newQuantity(inventory.getAvailable() - orderProducts.getQuantity())
+                .newQuantity(oldQuantity - orderProducts.getQuantity())
                 .orderId(event.getPayload().getId())
                 .transactionId(event.getTransactionId())
                 .build();
     }
 
-    private void updateInventory(Order order) {
-
-        order
-                .getProducts()
-                .forEach(product -> {
-                    var inventory = this.findInventoryByProductCode(product.getProduct().getCode());
-                    this.checkInventory(inventory.getAvailable(), product.getQuantity());
-                    inventory.setAvailable(inventory.getAvailable() - product.getQuantity());
-                    this.inventoryRepository.save(inventory);
-                });
-    }
-
-    public void checkInventory(int available, int orderQuantity) {
-
-        if (orderQuantity > available)
-            throw new ValidationException("Product is out of stock!.");
-    }
-
-    private Inventory findInventoryByProductCode(String productCode) {
-        return inventoryRepository
-                .findByProductCode(productCode)
-                .orElseThrow(() -> new ValidationException("Inventory not found by informed product: ".concat(productCode)));
-    }
-
     private void handleSuccess(Event event) {
 
         event.setStatus(ESagaStatus.SUCCESS);
@@ -114,6 +156,7 @@ public class InventoryService {
         addHistory(event, "Fail to realized update inventory: ".concat(message));
     }
 
+    @Transactional
     public void rollbackInventory(Event event) {
 
         event.setStatus(ESagaStatus.FAIL);
@@ -127,20 +170,19 @@ public class InventoryService {
         } catch (Exception e) {
             addHistory(event, "Rollback not executed for inventory!");
         }
-        kafkaProducer.sendEvent(jsonUtil.toJson(event));
+        outboxService.enqueue(event);
     }
 
+    /**
+     * Gives back what the order took rather than restoring the quantities it saw, so reservations made
+     * since are kept. Lines are claimed once, a repeated rollback releases nothing.
+     */
     private void returnInventoryToPreviousValues(Event event) {
 
-        this.orderInventoryRepository
-                .findByOrderIdAndTransactionId(event.getPayload().getId(), event.getTransactionId())
-                .forEach(orderInventory -> {
-                    var inventory = orderInventory.getInventory();
-                    inventory.setAvailable(orderInventory.getOldQuantity());
-                    this.inventoryRepository.save(inventory);
-                    log.info("Restored inventory for order {} from {} to {}",
-                            event.getPayload().getId(), orderInventory.getNewQuantity(), inventory.getAvailable());
-                });
+        var quantities = this.orderInventoryRepository.claimForCompensation(event.getPayload().getId(), event.getTransactionId());
+        this.inventoryStock.release(quantities);
+        quantities.forEach((productCode, quantity) ->
+                log.info("Released {} units of product {} for order {}", quantity, productCode, event.getPayload().getId()));
     }
 
     private void addHistory(Event event, String message) {
@@ -0,0 +1,58 @@
+package br.com.microservices.orchestrated.inventoryservice.core.stock;
+
+import br.com.microservices.orchestrated.inventoryservice.core.model.Inventory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Available quantities held in memory, one striped counter per product code.
+ */
+@Slf4j
+public class InMemoryInventory {
+
+    private final int stripes;
+    private final Map<String, StripedCounter> counters = new ConcurrentHashMap<>();
+
+    public InMemoryInventory(int stripes) {
+
+        this.stripes = stripes;
+    }
+
+    public void load(List<Inventory> inventories) {
+
+        inventories.forEach(inventory -> this.counters.put(inventory.getProductCode(), new StripedCounter(inventory.getAvailable(), this.stripes)));
+        log.info("Loaded {} products into the in memory inventory", inventories.size());
+    }
+
+    /**
+     * Reserves every product or none. Returns the quantity left for each product, or an empty map when
+     * one is unknown or has not enough available.
+     */
+    public Map<String, Integer> reserve(Map<String, Integer> quantitiesByProductCode) {
+
+        var reserved = new HashMap<String, Integer>();
+
+        for (var entry : quantitiesByProductCode.entrySet()) {
+            var counter = this.counters.get(entry.getKey());
+            var left = counter == null ? StripedCounter.NOT_RESERVED : counter.tryReserve(entry.getValue());
+            if (left == StripedCounter.NOT_RESERVED) {
+                reserved.keySet().forEach(productCode -> this.release(productCode, quantitiesByProductCode.get(productCode)));
+                return Map.of();
+            }
+            reserved.put(entry.getKey(), left);
+        }
+
+        return reserved;
+    }
+
+    public void release(String productCode, int quantity) {
+
+        var counter = this.counters.get(productCode);
+        if (counter != null)
+            counter.release(quantity);
+    }
+}
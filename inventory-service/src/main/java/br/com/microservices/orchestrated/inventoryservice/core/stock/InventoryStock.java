@@ -0,0 +1,124 @@
+package br.com.microservices.orchestrated.inventoryservice.core.stock;
+
+import br.com.microservices.orchestrated.inventoryservice.core.enums.EInventoryEngine;
+import br.com.microservices.orchestrated.inventoryservice.core.model.InventoryJournal;
+import br.com.microservices.orchestrated.inventoryservice.core.repository.InventoryJournalRepository;
+import br.com.microservices.orchestrated.inventoryservice.core.repository.InventoryRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+/**
+ * Where reservations are taken from. In DATABASE mode every reservation is a guarded update on the
+ * inventory table. In MEMORY mode they are taken from striped in memory counters and journaled in the
+ * caller's transaction, the journal is applied to the inventory table in batches. MEMORY mode expects
+ * a single inventory service instance, as the counters are not shared.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InventoryStock {
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryJournalRepository inventoryJournalRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value(value = "${inventory.engine}")
+    private EInventoryEngine engine;
+
+    @Value(value = "${inventory.memory.stripes}")
+    private int stripes;
+
+    private InMemoryInventory memory;
+
+    /**
+     * Applies what a previous run left in the journal before loading, so the counters start from the
+     * quantities actually committed.
+     */
+    @PostConstruct
+    public void load() {
+
+        if (EInventoryEngine.MEMORY != this.engine)
+            return;
+
+        this.memory = new InMemoryInventory(this.stripes);
+        this.transactionTemplate.executeWithoutResult(status -> {
+            this.inventoryJournalRepository.applyToInventory();
+            this.memory.load(this.inventoryRepository.findAll());
+        });
+    }
+
+    public Map<String, Integer> reserve(Map<String, Integer> quantitiesByProductCode) {
+
+        if (EInventoryEngine.MEMORY != this.engine)
+            return this.inventoryRepository.reserve(quantitiesByProductCode);
+
+        var reserved = this.memory.reserve(quantitiesByProductCode);
+        if (reserved.isEmpty())
+            return reserved;
+
+        quantitiesByProductCode.forEach((productCode, quantity) -> this.journal(productCode, -quantity));
+        this.undoOnRollback(() -> quantitiesByProductCode.forEach(this.memory::release));
+        return reserved;
+    }
+
+    public void release(Map<String, Integer> quantitiesByProductCode) {
+
+        if (EInventoryEngine.MEMORY != this.engine) {
+            this.inventoryRepository.release(quantitiesByProductCode);
+            return;
+        }
+
+        quantitiesByProductCode.forEach((productCode, quantity) -> {
+            this.memory.release(productCode, quantity);
+            this.journal(productCode, quantity);
+        });
+        this.undoOnRollback(() -> quantitiesByProductCode.forEach((productCode, quantity) -> this.memory.release(productCode, -quantity)));
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.memory.flush-interval-millis}")
+    public void flush() {
+
+        if (EInventoryEngine.MEMORY != this.engine)
+            return;
+
+        var updated = this.transactionTemplate.execute(status -> this.inventoryJournalRepository.applyToInventory());
+        if (updated != null && updated > 0)
+            log.info("Flushed inventory journal into {} products", updated);
+    }
+
+    private void journal(String productCode, int quantity) {
+
+        this.inventoryJournalRepository.save(InventoryJournal
+                .builder()
+                .productCode(productCode)
+                .quantity(quantity)
+                .build());
+    }
+
+    /**
+     * The counters change before the caller commits, they are put back if its transaction rolls back.
+     */
+    private void undoOnRollback(Runnable undo) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            return;
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCompletion(int status) {
+                if (STATUS_ROLLED_BACK == status)
+                    undo.run();
+            }
+        });
+    }
+}
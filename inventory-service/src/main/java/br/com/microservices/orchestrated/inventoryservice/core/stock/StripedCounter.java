@@ -0,0 +1,128 @@
+package br.com.microservices.orchestrated.inventoryservice.core.stock;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Available quantity of one product split across stripes, so concurrent reservations of a hot product
+ * mostly compare-and-set different cells instead of all retrying on the same one.
+ */
+class StripedCounter {
+
+    static final int NOT_RESERVED = Integer.MIN_VALUE;
+
+    // Keeps each stripe on its own cache line.
+    private static final int PADDING = 16;
+
+    private final int stripes;
+    private final AtomicIntegerArray cells;
+
+    StripedCounter(int available, int stripes) {
+
+        this.stripes = stripes;
+        this.cells = new AtomicIntegerArray(stripes * PADDING);
+
+        for (var stripe = 0; stripe < stripes; stripe++)
+            this.cells.set(stripe * PADDING, available / stripes + (stripe < available % stripes ? 1 : 0));
+    }
+
+    /**
+     * Takes the quantity from a single stripe when one holds enough, otherwise gathers it from several
+     * and gives it back if they are short. A reservation may then fail while another one holds part of
+     * the last units, it never takes more than is available.
+     * <p>
+     * Returns the quantity left, or {@link #NOT_RESERVED}. The stripes it took from are counted as its own
+     * compare-and-set left them and the others as read right after, so the value does not include
+     * reservations that came later on the same stripes.
+     */
+    int tryReserve(int quantity) {
+
+        var home = ThreadLocalRandom.current().nextInt(this.stripes);
+
+        for (var i = 0; i < this.stripes; i++) {
+            var stripe = (home + i) % this.stripes;
+            var left = this.takeAll(stripe, quantity);
+            if (left != NOT_RESERVED)
+                return left + this.availableExcept(stripe);
+        }
+
+        var taken = new int[this.stripes];
+        var left = new int[this.stripes];
+        var total = 0;
+        var visited = 0;
+
+        for (; visited < this.stripes && total < quantity; visited++) {
+            var stripe = (home + visited) % this.stripes;
+            var held = this.takeUpTo(stripe, quantity - total);
+            taken[stripe] = held > 0 ? Math.min(held, quantity - total) : 0;
+            left[stripe] = held - taken[stripe];
+            total += taken[stripe];
+        }
+
+        if (total == quantity) {
+            var available = 0;
+            for (var i = 0; i < this.stripes; i++) {
+                var stripe = (home + i) % this.stripes;
+                available += i < visited ? left[stripe] : this.cells.get(stripe * PADDING);
+            }
+            return available;
+        }
+
+        for (var stripe = 0; stripe < this.stripes; stripe++) {
+            if (taken[stripe] > 0)
+                this.cells.getAndAdd(stripe * PADDING, taken[stripe]);
+        }
+        return NOT_RESERVED;
+    }
+
+    void release(int quantity) {
+
+        this.cells.getAndAdd(ThreadLocalRandom.current().nextInt(this.stripes) * PADDING, quantity);
+    }
+
+    int available() {
+
+        return this.availableExcept(-1);
+    }
+
+    private int availableExcept(int skipped) {
+
+        var available = 0;
+        for (var stripe = 0; stripe < this.stripes; stripe++) {
+            if (stripe != skipped)
+                available += this.cells.get(stripe * PADDING);
+        }
+        return available;
+    }
+
+    /**
+     * Returns what the stripe holds after taking the quantity, or NOT_RESERVED when it holds less.
+     */
+    private int takeAll(int stripe, int quantity) {
+
+        var index = stripe * PADDING;
+        while (true) {
+            var current = this.cells.get(index);
+            if (current < quantity)
+                return NOT_RESERVED;
+            if (this.cells.compareAndSet(index, current, current - quantity))
+                return current - quantity;
+        }
+    }
+
+    /**
+     * Returns what the stripe held when up to the quantity was taken from it, nothing is taken unless
+     * that is positive.
+     */
+    private int takeUpTo(int stripe, int quantity) {
+
+        var index = stripe * PADDING;
+        while (true) {
+            var current = this.cells.get(index);
+            if (current <= 0)
+                return current;
+            if (this.cells.compareAndSet(index, current, current - Math.min(current, quantity)))
+                return current;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package br.com.microservices.orchestrated.inventoryservice.core.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bounds the records inside the database to the connection pool size in virtual thread mode. The
+ * RecordDispatcher then runs each record on its own virtual thread, so extra records wait here, parked,
+ * instead of timing out in the pool. In platform thread mode the consumer threads are the bound and
+ * calls go straight through.
+ */
+@Component
+public class DatabaseBulkhead {
+
+    private final Semaphore permits;
+
+    public DatabaseBulkhead(@Value("${spring.threads.virtual.enabled}") boolean virtualThreads,
+                            @Value("${spring.datasource.hikari.maximum-pool-size}") int poolSize) {
+
+        this.permits = virtualThreads ? new Semaphore(poolSize, true) : null;
+    }
+
+    public void run(Runnable call) {
+
+        if (this.permits == null) {
+            call.run();
+            return;
+        }
+
+        this.permits.acquireUninterruptibly();
+        try {
+            call.run();
+        } finally {
+            this.permits.release();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package br.com.microservices.orchestrated.inventoryservice.core.stock;
+
+import br.com.microservices.orchestrated.inventoryservice.core.model.Inventory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static br.com.microservices.orchestrated.inventoryservice.core.stock.StripedCounterTest.runConcurrently;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryInventoryTest {
+
+    private static final String BOOKS = "BOOKS";
+    private static final String COMIC_BOOKS = "COMIC_BOOKS";
+
+    private final InMemoryInventory inventory = new InMemoryInventory(8);
+
+    @Test
+    void reportsTheQuantityLeftForEachProduct() {
+
+        this.load(1_000, 100);
+
+        assertThat(this.inventory.reserve(order(3, 2))).isEqualTo(Map.of(BOOKS, 997, COMIC_BOOKS, 98));
+    }
+
+    @Test
+    void takesNothingWhenAProductIsUnknown() {
+
+        this.load(1_000, 100);
+
+        assertThat(this.inventory.reserve(Map.of(BOOKS, 1, "MOVIES", 1))).isEmpty();
+        assertThat(this.inventory.reserve(Map.of(BOOKS, 1_000))).containsEntry(BOOKS, 0);
+    }
+
+    @Test
+    void givesBackTheProductsAlreadyTakenWhenAnotherRunsOut() {
+
+        this.load(1_000, 100);
+
+        assertThat(this.inventory.reserve(order(5, 101))).isEmpty();
+        assertThat(this.inventory.reserve(order(1_000, 100))).isEqualTo(Map.of(BOOKS, 0, COMIC_BOOKS, 0));
+    }
+
+    /**
+     * BOOKS comes first, so every order failing on COMIC_BOOKS has to give back the BOOKS it took.
+     */
+    @Test
+    void reservesEveryProductOrNoneUnderContention() throws Exception {
+
+        this.load(1_000, 100);
+        var reserved = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (var i = 0; i < 100; i++) {
+                if (!this.inventory.reserve(order(1, 1)).isEmpty())
+                    reserved.incrementAndGet();
+            }
+        });
+
+        assertThat(reserved).hasValue(100);
+        assertThat(this.inventory.reserve(Map.of(COMIC_BOOKS, 1))).isEmpty();
+        assertThat(this.inventory.reserve(Map.of(BOOKS, 901))).isEmpty();
+        assertThat(this.inventory.reserve(Map.of(BOOKS, 900))).containsEntry(BOOKS, 0);
+    }
+
+    private void load(int books, int comicBooks) {
+
+        this.inventory.load(List.of(
+                new Inventory(1, BOOKS, books),
+                new Inventory(2, COMIC_BOOKS, comicBooks)));
+    }
+
+    private static Map<String, Integer> order(int books, int comicBooks) {
+
+        var quantities = new TreeMap<String, Integer>();
+        quantities.put(BOOKS, books);
+        quantities.put(COMIC_BOOKS, comicBooks);
+        return quantities;
+    }
+}
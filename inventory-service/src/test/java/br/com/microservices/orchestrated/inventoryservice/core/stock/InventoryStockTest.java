@@ -0,0 +1,117 @@
+package br.com.microservices.orchestrated.inventoryservice.core.stock;
+
+import br.com.microservices.orchestrated.inventoryservice.core.enums.EInventoryEngine;
+import br.com.microservices.orchestrated.inventoryservice.core.model.Inventory;
+import br.com.microservices.orchestrated.inventoryservice.core.repository.InventoryJournalRepository;
+import br.com.microservices.orchestrated.inventoryservice.core.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static br.com.microservices.orchestrated.inventoryservice.core.stock.StripedCounterTest.runConcurrently;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.transaction.support.TransactionSynchronization.STATUS_COMMITTED;
+import static org.springframework.transaction.support.TransactionSynchronization.STATUS_ROLLED_BACK;
+
+class InventoryStockTest {
+
+    private static final String BOOKS = "BOOKS";
+    private static final int AVAILABLE = 10_000;
+
+    private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+    private final InventoryJournalRepository inventoryJournalRepository = mock(InventoryJournalRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final InventoryStock stock = new InventoryStock(this.inventoryRepository, this.inventoryJournalRepository, this.transactionTemplate);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void load() {
+
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Consumer.class).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(this.transactionTemplate).executeWithoutResult(any());
+        when(this.inventoryRepository.findAll()).thenReturn(List.of(new Inventory(1, BOOKS, AVAILABLE)));
+
+        ReflectionTestUtils.setField(this.stock, "engine", EInventoryEngine.MEMORY);
+        ReflectionTestUtils.setField(this.stock, "stripes", 8);
+        this.stock.load();
+    }
+
+    @Test
+    void keepsAReservationWhenTheTransactionCommits() {
+
+        inTransaction(STATUS_COMMITTED, () -> this.stock.reserve(Map.of(BOOKS, 4)));
+
+        assertThat(this.stock.reserve(Map.of(BOOKS, AVAILABLE - 3))).isEmpty();
+        assertThat(this.stock.reserve(Map.of(BOOKS, AVAILABLE - 4))).containsEntry(BOOKS, 0);
+    }
+
+    @Test
+    void putsAReservationBackWhenTheTransactionRollsBack() {
+
+        inTransaction(STATUS_ROLLED_BACK, () -> this.stock.reserve(Map.of(BOOKS, AVAILABLE)));
+
+        assertThat(this.stock.reserve(Map.of(BOOKS, AVAILABLE))).containsEntry(BOOKS, 0);
+    }
+
+    @Test
+    void takesAReleaseBackWhenTheTransactionRollsBack() {
+
+        inTransaction(STATUS_ROLLED_BACK, () -> this.stock.release(Map.of(BOOKS, 5)));
+
+        assertThat(this.stock.reserve(Map.of(BOOKS, AVAILABLE + 1))).isEmpty();
+        assertThat(this.stock.reserve(Map.of(BOOKS, AVAILABLE))).containsEntry(BOOKS, 0);
+    }
+
+    @Test
+    void restoresTheStockOfEveryRolledBackTransactionUnderContention() throws Exception {
+
+        var committed = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (var i = 0; i < 200; i++) {
+                var rollback = i % 2 == 0;
+                inTransaction(rollback ? STATUS_ROLLED_BACK : STATUS_COMMITTED, () -> {
+                    if (rollback) {
+                        this.stock.reserve(Map.of(BOOKS, 3));
+                        this.stock.release(Map.of(BOOKS, 2));
+                    } else {
+                        this.stock.reserve(Map.of(BOOKS, 1));
+                    }
+                });
+                if (!rollback)
+                    committed.incrementAndGet();
+            }
+        });
+
+        var left = AVAILABLE - committed.get();
+        assertThat(this.stock.reserve(Map.of(BOOKS, left + 1))).isEmpty();
+        assertThat(this.stock.reserve(Map.of(BOOKS, left))).containsEntry(BOOKS, 0);
+    }
+
+    /**
+     * Runs the work with transaction synchronization active on this thread, then completes it as the
+     * transaction manager would.
+     */
+    private static void inTransaction(int status, Runnable work) {
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.afterCompletion(status));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package br.com.microservices.orchestrated.inventoryservice.core.stock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static br.com.microservices.orchestrated.inventoryservice.core.stock.StripedCounter.NOT_RESERVED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedCounterTest {
+
+    static final int THREADS = 16;
+
+    @Test
+    void reportsTheQuantityLeftAfterEachReservation() {
+
+        var counter = new StripedCounter(10, 4);
+
+        assertThat(counter.tryReserve(1)).isEqualTo(9);
+        assertThat(counter.tryReserve(7)).isEqualTo(2);
+        assertThat(counter.tryReserve(3)).isEqualTo(NOT_RESERVED);
+        assertThat(counter.tryReserve(2)).isZero();
+        assertThat(counter.tryReserve(1)).isEqualTo(NOT_RESERVED);
+    }
+
+    @Test
+    void givesBackWhatAFailedReservationGathered() {
+
+        var counter = new StripedCounter(10, 4);
+
+        assertThat(counter.tryReserve(11)).isEqualTo(NOT_RESERVED);
+        assertThat(counter.available()).isEqualTo(10);
+        assertThat(counter.tryReserve(10)).isZero();
+    }
+
+    @Test
+    void neverTakesMoreThanIsAvailable() throws Exception {
+
+        var counter = new StripedCounter(1_000, 8);
+        var reserved = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (var i = 0; i < 2_000; i++) {
+                var quantity = 1 + ThreadLocalRandom.current().nextInt(7);
+                if (counter.tryReserve(quantity) != NOT_RESERVED)
+                    reserved.addAndGet(quantity);
+            }
+        });
+
+        assertThat(reserved.get()).isLessThanOrEqualTo(1_000);
+        assertThat(counter.available()).isEqualTo(1_000 - reserved.get());
+        assertThat(counter.tryReserve(counter.available() + 1)).isEqualTo(NOT_RESERVED);
+        assertThat(counter.tryReserve(counter.available())).isZero();
+    }
+
+    /**
+     * Asks up to more than the whole stock, so some reservations gather from every stripe and give it all
+     * back while others take and release around them.
+     */
+    @Test
+    void failedReservationsUnderContentionLeaveTheStockWhole() throws Exception {
+
+        var counter = new StripedCounter(64, 8);
+        var failed = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (var i = 0; i < 5_000; i++) {
+                var quantity = 1 + ThreadLocalRandom.current().nextInt(72);
+                if (counter.tryReserve(quantity) == NOT_RESERVED)
+                    failed.incrementAndGet();
+                else
+                    counter.release(quantity);
+            }
+        });
+
+        assertThat(failed.get()).isPositive();
+        assertThat(counter.available()).isEqualTo(64);
+        assertThat(counter.tryReserve(64)).isZero();
+    }
+
+    @Test
+    void eachReservationReportsItsOwnQuantityLeft() throws Exception {
+
+        var counter = new StripedCounter(1_000, 1);
+        var left = ConcurrentHashMap.<Integer>newKeySet();
+
+        runConcurrently(() -> {
+            for (var quantityLeft = counter.tryReserve(1); quantityLeft != NOT_RESERVED; quantityLeft = counter.tryReserve(1))
+                left.add(quantityLeft);
+        });
+
+        assertThat(left).containsExactlyInAnyOrderElementsOf(IntStream.range(0, 1_000).boxed().toList());
+    }
+
+    /**
+     * Starts the task on every thread at once and waits for all of them.
+     */
+    static void runConcurrently(Runnable task) throws Exception {
+
+        var start = new CountDownLatch(1);
+        try (var executor = Executors.newFixedThreadPool(THREADS)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (var i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (var future : futures)
+                future.get(30, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package br.com.microservices.orchestrated.inventoryservice.core.utils;
+
+import br.com.microservices.orchestrated.inventoryservice.core.dto.Event;
+import br.com.microservices.orchestrated.inventoryservice.core.dto.History;
+import br.com.microservices.orchestrated.inventoryservice.core.dto.Order;
+import br.com.microservices.orchestrated.inventoryservice.core.dto.OrderProducts;
+import br.com.microservices.orchestrated.inventoryservice.core.dto.Product;
+import br.com.microservices.orchestrated.inventoryservice.core.enums.EEventFormat;
+import br.com.microservices.orchestrated.inventoryservice.core.enums.EHistoryMode;
+import br.com.microservices.orchestrated.inventoryservice.core.enums.ESagaStatus;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The fixtures under src/test/resources/codec are shared by the codec tests of every service: each one
+ * encodes the same event to the same bytes and decodes them back, so a change in any copy of the codec
+ * that breaks the wire format fails here. event-v1.hex holds the same event as written before history
+ * sequences were added.
+ */
+class EventCodecTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 1, 2, 3, 4, 5, 123_456_789);
+
+    private final ObjectMapper objectMapper = objectMapper();
+    private final EventCodec binaryCodec = new EventCodec(this.objectMapper, EEventFormat.BINARY, EHistoryMode.FULL);
+    private final EventCodec jsonCodec = new EventCodec(this.objectMapper, EEventFormat.JSON, EHistoryMode.FULL);
+
+    @Test
+    void encodesTheSharedFixture() {
+
+        assertThat(this.binaryCodec.encode(canonicalEvent())).isEqualTo(fixture("event-v2.hex"));
+    }
+
+    @Test
+    void decodesTheSharedFixture() {
+
+        assertThat(this.binaryCodec.decode(fixture("event-v2.hex"))).isEqualTo(canonicalEvent());
+    }
+
+    @Test
+    void decodesAnEventWrittenBeforeHistorySequences() {
+
+        var expected = unsequencedEvent();
+        var event = this.binaryCodec.decode(fixture("event-v1.hex"));
+
+        assertThat(event).isEqualTo(expected);
+        assertThat(this.binaryCodec.encode(event)[1]).isEqualTo(EventCodec.VERSION);
+
+        var deltaCodec = new EventCodec(this.objectMapper, EEventFormat.BINARY, EHistoryMode.DELTA);
+        expected.setEventHistory(null);
+        assertThat(deltaCodec.decode(fixture("event-v1.hex"))).isEqualTo(expected);
+    }
+
+    @Test
+    void decodesTheEventSplicedByTheOrchestrator() {
+
+        var event = this.binaryCodec.decode(fixture("event-v2-spliced.hex"));
+
+        assertThat(event.getSource()).isEqualTo("ORCHESTRATOR");
+        assertThat(event.getStatus()).isEqualTo(ESagaStatus.SUCCESS);
+        assertThat(event.getHistorySequence()).isEqualTo(301);
+        assertThat(event.getPayload()).isEqualTo(canonicalEvent().getPayload());
+        assertThat(event.getEventHistory()).hasSize(4).last()
+                .isEqualTo(new History("ORCHESTRATOR", ESagaStatus.SUCCESS, "Moving on!", CREATED_AT, 301));
+    }
+
+    @Test
+    void roundTripsBetweenJsonAndBinary() {
+
+        var json = this.jsonCodec.encode(canonicalEvent());
+        assertThat(EventCodec.isBinary(json)).isFalse();
+
+        var fromJson = this.binaryCodec.decode(json);
+        assertThat(fromJson).isEqualTo(canonicalEvent());
+
+        var binary = this.binaryCodec.encode(fromJson);
+        assertThat(binary).isEqualTo(fixture("event-v2.hex"));
+        assertThat(this.jsonCodec.decode(binary)).isEqualTo(canonicalEvent());
+        assertThat(this.jsonCodec.encode(this.jsonCodec.decode(binary))).isEqualTo(json);
+    }
+
+    @Test
+    void roundTripsAnEventWithoutOptionalValues() {
+
+        var event = new Event();
+        event.setPayload(Order.builder().build());
+        event.setEventHistory(List.of(new History()));
+
+        assertThat(this.binaryCodec.decode(this.binaryCodec.encode(event))).isEqualTo(event);
+        assertThat(this.binaryCodec.decode(this.binaryCodec.encode(new Event()))).isEqualTo(new Event());
+    }
+
+    @Test
+    void skipsIncomingHistoryInDeltaMode() {
+
+        var deltaCodec = new EventCodec(this.objectMapper, EEventFormat.BINARY, EHistoryMode.DELTA);
+        var expected = canonicalEvent();
+        expected.setEventHistory(null);
+
+        assertThat(deltaCodec.decode(fixture("event-v2.hex"))).isEqualTo(expected);
+        assertThat(deltaCodec.decode(this.jsonCodec.encode(canonicalEvent()))).isEqualTo(expected);
+    }
+
+    @Test
+    void reusesItsBufferAfterALargeEvent() {
+
+        var large = canonicalEvent();
+        large.getEventHistory().get(0).setMessage("x".repeat(2 * 1024 * 1024));
+
+        assertThat(this.binaryCodec.decode(this.binaryCodec.encode(large))).isEqualTo(large);
+        assertThat(this.binaryCodec.encode(canonicalEvent())).isEqualTo(fixture("event-v2.hex"));
+    }
+
+    @Test
+    void rejectsMalformedBinaryEvents() {
+
+        var fixture = fixture("event-v2.hex");
+        var unknownVersion = fixture.clone();
+        unknownVersion[1] = EventCodec.VERSION + 1;
+        var unknownStatus = fixture.clone();
+        unknownStatus[2] = 9;
+
+        assertThat(this.binaryCodec.decode(Arrays.copyOf(fixture, fixture.length / 2))).isNull();
+        assertThat(this.binaryCodec.decode(unknownVersion)).isNull();
+        assertThat(this.binaryCodec.decode(unknownStatus)).isNull();
+        assertThat(this.binaryCodec.decode(new byte[0])).isNull();
+    }
+
+    private static Event canonicalEvent() {
+
+        var products = new ArrayList<OrderProducts>();
+        products.add(new OrderProducts(new Product("COMIC_BOOKS", 15.50), 3));
+        products.add(new OrderProducts(new Product("LIVROS_AÇÃO", 9.90), 1));
+        products.add(new OrderProducts(null, 2));
+
+        var order = Order
+                .builder()
+                .id("o-1")
+                .transactionId("t-1")
+                .products(products)
+                .createdAt(CREATED_AT)
+                .totalAmount(56.40)
+                .totalItems(-6)
+                .build();
+
+        var eventHistory = new ArrayList<History>();
+        eventHistory.add(new History("ORCHESTRATOR", ESagaStatus.SUCCESS, "Saga started!", CREATED_AT, 1));
+        eventHistory.add(new History("PRODUCT_VALIDATION_SERVICE", ESagaStatus.SUCCESS, "Validated \"ok\" 😀", CREATED_AT.plusSeconds(1), 2));
+        eventHistory.add(new History("PAYMENT_SERVICE", ESagaStatus.ROLLBACK_PENDING, null, null, 300));
+
+        return Event
+                .builder()
+                .id("e-1")
+                .transactionId("t-1")
+                .orderId("o-1")
+                .payload(order)
+                .source("PAYMENT_SERVICE")
+                .status(ESagaStatus.ROLLBACK_PENDING)
+                .eventHistory(eventHistory)
+                .historySequence(300)
+                .createdAt(CREATED_AT)
+                .build();
+    }
+
+    /**
+     * The canonical event as read from the version 1 layout: entries are numbered by position.
+     */
+    private static Event unsequencedEvent() {
+
+        var event = canonicalEvent();
+        event.getEventHistory().get(2).setSequence(3);
+        event.setHistorySequence(3);
+        return event;
+    }
+
+    private static byte[] fixture(String name) {
+
+        try (var input = EventCodecTest.class.getResourceAsStream("/codec/" + name)) {
+            return HexFormat.of().parseHex(new String(input.readAllBytes(), UTF_8).strip());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ObjectMapper objectMapper() {
+
+        return new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+}
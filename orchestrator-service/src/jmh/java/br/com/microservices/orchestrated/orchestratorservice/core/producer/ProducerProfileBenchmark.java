@@ -0,0 +1,183 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.producer;
+
+import br.com.microservices.orchestrated.orchestratorservice.core.dto.*;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventFormat;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EProducerProfile;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus;
+import br.com.microservices.orchestrated.orchestratorservice.core.utils.EventCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends bursts of saga events to an embedded broker with each {@link EProducerProfile}. JMH reports
+ * records/s, the p50 and p99 time from send to acknowledgement over the measurement iterations are
+ * printed on tear down. Each burst waits for all of its acknowledgements, like an outbox relay batch,
+ * so the linger of the last batch is paid once per burst. Run with
+ * {@code ./gradlew jmh -Pjmh.includes=ProducerProfileBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProducerProfileBenchmark {
+
+    private static final String TOPIC = "producer-profile-benchmark";
+    private static final int PARTITION_COUNT = 3;
+    private static final int BURST_SIZE = 1_000;
+    private static final int ORDER_COUNT = 256;
+    private static final int MAX_SAMPLES = 1 << 22;
+
+    @Param({"LATENCY", "THROUGHPUT"})
+    private EProducerProfile profile;
+
+    private EmbeddedKafkaBroker broker;
+    private KafkaProducer<String, byte[]> producer;
+    private String[] orderIds;
+    private byte[][] payloads;
+
+    // Written by the producer's I/O thread only, read after the last burst is acknowledged.
+    private final long[] latencies = new long[MAX_SAMPLES];
+    private int latencyCount;
+    private int errorCount;
+    private boolean measuring;
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        this.broker = new EmbeddedKafkaBroker(1, false, PARTITION_COUNT, TOPIC);
+        this.broker.afterPropertiesSet();
+
+        var props = new HashMap<String, Object>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, this.broker.getBrokersAsString());
+        this.profile.applyTo(props);
+        this.producer = new KafkaProducer<>(props, new StringSerializer(), new ByteArraySerializer());
+
+        var objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        var eventCodec = new EventCodec(objectMapper, EEventFormat.BINARY);
+
+        this.orderIds = new String[ORDER_COUNT];
+        this.payloads = new byte[ORDER_COUNT][];
+        for (var i = 0; i < ORDER_COUNT; i++) {
+            var event = createEvent();
+            this.orderIds[i] = event.getOrderId();
+            this.payloads[i] = eventCodec.encode(event);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration(IterationParams params) {
+        this.measuring = params.getType() == IterationType.MEASUREMENT;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST_SIZE)
+    public void sendBurst() throws InterruptedException {
+
+        var acknowledged = new CountDownLatch(BURST_SIZE);
+
+        for (var i = 0; i < BURST_SIZE; i++) {
+            var order = i % ORDER_COUNT;
+            var start = System.nanoTime();
+            this.producer.send(new ProducerRecord<>(TOPIC, this.orderIds[order], this.payloads[order]), (metadata, e) -> {
+                this.record(System.nanoTime() - start, e);
+                acknowledged.countDown();
+            });
+        }
+
+        acknowledged.await();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        this.producer.close();
+        this.broker.destroy();
+
+        var sorted = Arrays.copyOf(this.latencies, this.latencyCount);
+        Arrays.sort(sorted);
+        System.out.printf("%n%s: %d sends, %d errors, p50 %.3f ms, p99 %.3f ms%n", this.profile, this.latencyCount, this.errorCount,
+                toMillis(percentile(sorted, 0.50)), toMillis(percentile(sorted, 0.99)));
+    }
+
+    private void record(long latency, Exception e) {
+
+        if (e != null)
+            this.errorCount++;
+        else if (this.measuring && this.latencyCount < MAX_SAMPLES)
+            this.latencies[this.latencyCount++] = latency;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.ceil(percentile * sorted.length) - 1];
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static Event createEvent() {
+
+        var now = LocalDateTime.now();
+        var orderId = UUID.randomUUID().toString();
+        var transactionId = UUID.randomUUID().toString();
+        var products = List.of(
+                new OrderProducts(new Product("COMIC_BOOKS", 15.50), 3),
+                new OrderProducts(new Product("BOOKS", 9.90), 1),
+                new OrderProducts(new Product("MOVIES", 5.00), 2));
+
+        var order = Order
+                .builder()
+                .id(orderId)
+                .transactionId(transactionId)
+                .products(products)
+                .createdAt(now)
+                .totalAmount(66.40)
+                .totalItems(6)
+                .build();
+
+        var eventHistory = new ArrayList<History>();
+        for (var source : List.of(EEventSource.ORCHESTRATOR, EEventSource.PRODUCT_VALIDATION_SERVICE, EEventSource.ORCHESTRATOR))
+            eventHistory.add(History
+                    .builder()
+                    .source(source)
+                    .status(ESagaStatus.SUCCESS)
+                    .message("Saga step done!")
+                    .createdAt(now)
+                    .build());
+
+        return Event
+                .builder()
+                .id(UUID.randomUUID().toString())
+                .orderId(orderId)
+                .transactionId(transactionId)
+                .payload(order)
+                .source(EEventSource.PAYMENT_SERVICE)
+                .status(ESagaStatus.SUCCESS)
+                .eventHistory(eventHistory)
+                .createdAt(now)
+                .build();
+    }
+}
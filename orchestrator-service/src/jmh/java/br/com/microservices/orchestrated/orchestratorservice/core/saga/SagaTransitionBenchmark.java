@@ -0,0 +1,68 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.saga;
+
+import br.com.microservices.orchestrated.orchestratorservice.config.exception.ValidationException;
+import br.com.microservices.orchestrated.orchestratorservice.core.dto.Event;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ETopic;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static br.com.microservices.orchestrated.orchestratorservice.core.saga.SagaHandler.*;
+
+/**
+ * Compares the previous stream scan over {@link SagaHandler#SAGA_HANDLER} with the compiled
+ * {@link SagaTransitionTable}. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SagaTransitionBenchmark {
+
+    private SagaTransitionTable sagaTransitionTable;
+    private Event[] events;
+    private int next;
+
+    @Setup
+    public void setup() {
+
+        this.sagaTransitionTable = new SagaTransitionTable();
+        this.events = Arrays.stream(SAGA_HANDLER)
+                .map(row -> Event
+                        .builder()
+                        .source((EEventSource) row[EVENT_SOURCE_INDEX])
+                        .status((ESagaStatus) row[SAGA_STATUS_INDEX])
+                        .build())
+                .toArray(Event[]::new);
+    }
+
+    @Benchmark
+    public ETopic linearScan() {
+
+        var event = this.nextEvent();
+        return (ETopic) Arrays.stream(SAGA_HANDLER)
+                .filter(row -> event.getSource().equals(row[EVENT_SOURCE_INDEX]) && event.getStatus().equals(row[SAGA_STATUS_INDEX]))
+                .map(row -> row[TOPIC_INDEX])
+                .findFirst()
+                .orElseThrow(() -> new ValidationException("Topic not found"));
+    }
+
+    @Benchmark
+    public ETopic transitionTable() {
+
+        var event = this.nextEvent();
+        return this.sagaTransitionTable.findTopic(event.getSource(), event.getStatus());
+    }
+
+    private Event nextEvent() {
+
+        var event = this.events[this.next];
+        this.next = (this.next + 1) % this.events.length;
+        return event;
+    }
+}
@@ -0,0 +1,142 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.utils;
+
+import br.com.microservices.orchestrated.orchestratorservice.core.dto.*;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventFormat;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compares the previous {@link JsonUtil} path (JSON string plus String serializer) with {@link EventCodec}
+ * for encoding, decoding and the history splice done by the orchestrator. Wire sizes are printed on
+ * setup. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventCodecBenchmark {
+
+    @Param({"1", "6", "12"})
+    private int historySize;
+
+    private JsonUtil jsonUtil;
+    private EventCodec eventCodec;
+    private Event event;
+    private History history;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup
+    public void setup() {
+
+        var objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        this.jsonUtil = new JsonUtil(objectMapper);
+        this.eventCodec = new EventCodec(objectMapper, EEventFormat.BINARY);
+        this.event = createEvent(this.historySize);
+        this.history = createHistory(EEventSource.ORCHESTRATOR, ESagaStatus.SUCCESS);
+        this.json = this.jsonUtil.toJson(this.event).getBytes(UTF_8);
+        this.binary = this.eventCodec.encode(this.event);
+
+        System.out.printf("%nhistory %d: json %d bytes, binary %d bytes%n", this.historySize, this.json.length, this.binary.length);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() {
+
+        return this.jsonUtil.toJson(this.event).getBytes(UTF_8);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+
+        return this.eventCodec.encode(this.event);
+    }
+
+    @Benchmark
+    public Event jsonDecode() {
+
+        return this.jsonUtil.toEvent(new String(this.json, UTF_8));
+    }
+
+    @Benchmark
+    public Event binaryDecode() {
+
+        return this.eventCodec.decode(this.binary);
+    }
+
+    @Benchmark
+    public byte[] jsonSplice() {
+
+        return this.jsonUtil.splice(this.json, EEventSource.ORCHESTRATOR, ESagaStatus.SUCCESS, this.history);
+    }
+
+    @Benchmark
+    public byte[] binarySplice() {
+
+        return this.eventCodec.splice(this.binary, EEventSource.ORCHESTRATOR, ESagaStatus.SUCCESS, this.history);
+    }
+
+    private static Event createEvent(int historySize) {
+
+        var now = LocalDateTime.now();
+        var orderId = UUID.randomUUID().toString();
+        var transactionId = UUID.randomUUID().toString();
+        var products = List.of(
+                new OrderProducts(new Product("COMIC_BOOKS", 15.50), 3),
+                new OrderProducts(new Product("BOOKS", 9.90), 1),
+                new OrderProducts(new Product("MOVIES", 5.00), 2));
+
+        var order = Order
+                .builder()
+                .id(orderId)
+                .transactionId(transactionId)
+                .products(products)
+                .createdAt(now)
+                .totalAmount(66.40)
+                .totalItems(6)
+                .build();
+
+        var eventHistory = new ArrayList<History>();
+        for (var i = 0; i < historySize; i++)
+            eventHistory.add(createHistory(EEventSource.values()[i % EEventSource.values().length], ESagaStatus.SUCCESS));
+
+        return Event
+                .builder()
+                .id(UUID.randomUUID().toString())
+                .orderId(orderId)
+                .transactionId(transactionId)
+                .payload(order)
+                .source(EEventSource.PAYMENT_SERVICE)
+                .status(ESagaStatus.SUCCESS)
+                .eventHistory(eventHistory)
+                .createdAt(now)
+                .build();
+    }
+
+    private static History createHistory(EEventSource source, ESagaStatus status) {
+
+        return History
+                .builder()
+                .source(source)
+                .status(status)
+                .message("Payment realized successfully!")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -1,29 +1,43 @@
 package br.com.microservices.orchestrated.orchestratorservice.config.kafka;
 
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EProducerProfile;
 import br.com.microservices.orchestrated.orchestratorservice.core.enums.ETopic;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.retrytopic.DeadLetterPublishingRecovererFactory;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationSupport;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @EnableKafka
 @Configuration
 @RequiredArgsConstructor
-public class KafkaConfig {
+public class KafkaConfig extends RetryTopicConfigurationSupport {
 
-    private static final Integer PARTITION_COUNT = 1;
     private static final Integer REPLICA_COUNT = 1;
 
+    private final MeterRegistry meterRegistry;
+
     @Value(value = "${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
@@ -33,8 +47,29 @@ public class KafkaConfig {
     @Value(value = "${spring.kafka.consumer.auto-offset-reset}")
     private String autoOffsetReset;
 
+    @Value(value = "${spring.kafka.producer-profile}")
+    private EProducerProfile producerProfile;
+
+    @Value(value = "${spring.kafka.partitions}")
+    private Integer partitionCount;
+
+    @Value(value = "${spring.kafka.listener.concurrency}")
+    private Integer listenerConcurrency;
+
+    @Value(value = "${spring.kafka.retry.attempts}")
+    private Integer retryAttempts;
+
+    @Value(value = "${spring.kafka.retry.initial-interval-millis}")
+    private Long retryInitialIntervalMillis;
+
+    @Value(value = "${spring.kafka.retry.multiplier}")
+    private Double retryMultiplier;
+
+    @Value(value = "${spring.kafka.retry.max-interval-millis}")
+    private Long retryMaxIntervalMillis;
+
     @Bean
-    public ConsumerFactory<String, String> consumerFactory() {
+    public ConsumerFactory<String, byte[]> consumerFactory() {
 
         return new DefaultKafkaConsumerFactory<>(this.consumerProps());
     }
@@ -44,38 +79,83 @@ public class KafkaConfig {
         var props = new HashMap<String, Object>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, this.bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, this.groupId);
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.KEY_DESERIALIZER_CLASS, StringDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, ByteArrayDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, this.autoOffsetReset);
         return props;
     }
 
     @Bean
-    public ProducerFactory<String, String> producerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> kafkaListenerContainerFactory() {
+
+        var factory = new ConcurrentKafkaListenerContainerFactory<String, byte[]>();
+        factory.setConsumerFactory(this.consumerFactory());
+        factory.setConcurrency(this.listenerConcurrency);
+        factory.getContainerProperties().setObservationEnabled(true);
+        return factory;
+    }
+
+    /**
+     * Failed records move through retry topics with an exponential delay and end in the dead letter
+     * topic of the listener's topic, so they never hold back the main partition. Payloads that cannot be
+     * decoded go straight to the dead letter topic.
+     */
+    @Bean
+    public RetryTopicConfiguration retryTopicConfiguration() {
+
+        return RetryTopicConfigurationBuilder
+                .newInstance()
+                .maxAttempts(this.retryAttempts)
+                .exponentialBackoff(this.retryInitialIntervalMillis, this.retryMultiplier, this.retryMaxIntervalMillis)
+                .retryTopicSuffix(DeadLetterRecoverer.RETRY_SUFFIX)
+                .dltSuffix(DeadLetterRecoverer.DLT_SUFFIX)
+                .suffixTopicsWithIndexValues()
+                .notRetryOn(SerializationException.class)
+                .doNotRetryOnDltFailure()
+                .autoCreateTopicsWith(this.partitionCount, REPLICA_COUNT.shortValue())
+                .create(this.kafkaTemplate());
+    }
+
+    @Override
+    protected Consumer<DeadLetterPublishingRecovererFactory> configureDeadLetterPublishingContainerFactory() {
+
+        return factory -> factory.setDeadLetterPublisherCreator((templateResolver, destinationResolver) ->
+                new DeadLetterRecoverer(templateResolver, destinationResolver, this.meterRegistry));
+    }
+
+    @Bean
+    public ProducerFactory<String, byte[]> producerFactory() {
 
-        return new DefaultKafkaProducerFactory<>(this.producerProps());
+        var factory = new DefaultKafkaProducerFactory<String, byte[]>(this.producerProps());
+        factory.addListener(new MicrometerProducerListener<>(this.meterRegistry));
+        return factory;
     }
 
     private Map<String, Object> producerProps() {
 
         var props = new HashMap<String, Object>();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, this.bootstrapServers);
-        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        this.producerProfile.applyTo(props);
         return props;
     }
 
     @Bean
-    public KafkaTemplate<String, String> kafkaTemplate() {
+    public KafkaTemplate<String, byte[]> kafkaTemplate() {
         
-        return new KafkaTemplate<>(producerFactory());
+        var template = new KafkaTemplate<>(producerFactory());
+        template.setObservationEnabled(true);
+        return template;
     }
 
     private NewTopic buildTopic(String name) {
         return TopicBuilder
                 .name(name)
                 .replicas(REPLICA_COUNT)
-                .partitions(PARTITION_COUNT)
+                .partitions(this.partitionCount)
                 .build();
     }
 
@@ -1,29 +1,43 @@
 package br.com.microservices.orchestrated.orchestratorservice.core.consumer;
 
+import br.com.microservices.orchestrated.orchestratorservice.core.dto.EventHeaders;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaHeader;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus;
 import br.com.microservices.orchestrated.orchestratorservice.core.service.OrchestratorService;
-import br.com.microservices.orchestrated.orchestratorservice.core.utils.JsonUtil;
+import br.com.microservices.orchestrated.orchestratorservice.core.utils.EventCodec;
+import br.com.microservices.orchestrated.orchestratorservice.core.utils.SagaLog;
+import br.com.microservices.orchestrated.orchestratorservice.core.utils.SagaMetrics;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.errors.SerializationException;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.util.ObjectUtils.isEmpty;
+
 @Slf4j
 @Component
 @AllArgsConstructor
 public class SagaOrchestratorConsumer {
 
-    private final JsonUtil jsonUtil;
+    private final EventCodec eventCodec;
     private final OrchestratorService orchestratorService;
+    private final SagaMetrics sagaMetrics;
+    private final SagaLog sagaLog;
 
     @KafkaListener(
             groupId = "${spring.kafka.consumer.group-id}",
             topics = "${spring.kafka.topic.start-saga}"
     )
 
-    public void consumeStartSagaEvent(String payload) {
-        log.info("Receiving event {} from start-saga topic", payload);
-        var event = jsonUtil.toEvent(payload);
-        this.orchestratorService.startSaga(event);
+    public void consumeStartSagaEvent(ConsumerRecord<String, byte[]> record) {
+        var headers = this.readHeaders(record);
+        this.sagaLog.info(log, headers, "Receiving event {} from start-saga topic", headers);
+        this.sagaMetrics.recordQueueDelay(record);
+        this.sagaMetrics.timeStep(record.topic(), headers.getOrderId(), record.serializedValueSize(), () -> this.orchestratorService.startSaga(headers, record.value()));
     }
 
     @KafkaListener(
@@ -31,10 +45,11 @@ public class SagaOrchestratorConsumer {
             topics = "${spring.kafka.topic.orchestrator}"
     )
 
-    public void consumeOrchestratorEvent(String payload) {
-        log.info("Receiving event {} from orchestrator topic", payload);
-        var event = jsonUtil.toEvent(payload);
-        this.orchestratorService.continueSaga(event);
+    public void consumeOrchestratorEvent(ConsumerRecord<String, byte[]> record) {
+        var headers = this.readHeaders(record);
+        this.sagaLog.info(log, headers, "Receiving event {} from orchestrator topic", headers);
+        this.sagaMetrics.recordQueueDelay(record);
+        this.sagaMetrics.timeStep(record.topic(), headers.getOrderId(), record.serializedValueSize(), () -> this.orchestratorService.continueSaga(headers, record.value()));
     }
 
     @KafkaListener(
@@ -42,10 +57,11 @@ public class SagaOrchestratorConsumer {
             topics = "${spring.kafka.topic.finish-success}"
     )
 
-    public void consumeFinishSuccessEvent(String payload) {
-        log.info("Receiving event {} from finish-success topic", payload);
-        var event = jsonUtil.toEvent(payload);
-        this.orchestratorService.finishSagaSuccess(event);
+    public void consumeFinishSuccessEvent(ConsumerRecord<String, byte[]> record) {
+        var headers = this.readHeaders(record);
+        this.sagaLog.info(log, headers, "Receiving event {} from finish-success topic", headers);
+        this.sagaMetrics.recordQueueDelay(record);
+        this.sagaMetrics.timeStep(record.topic(), headers.getOrderId(), record.serializedValueSize(), () -> this.orchestratorService.finishSagaSuccess(headers, record.value()));
     }
 
     @KafkaListener(
@@ -53,9 +69,53 @@ public class SagaOrchestratorConsumer {
             topics = "${spring.kafka.topic.finish-fail}"
     )
 
-    public void consumeFinishFailEvent(String payload) {
-        log.info("Receiving event {} from finish-fail topic", payload);
-        var event = jsonUtil.toEvent(payload);
-        this.orchestratorService.finishSagaFail(event);
+    public void consumeFinishFailEvent(ConsumerRecord<String, byte[]> record) {
+        var headers = this.readHeaders(record);
+        this.sagaLog.info(log, headers, "Receiving event {} from finish-fail topic", headers);
+        this.sagaMetrics.recordQueueDelay(record);
+        this.sagaMetrics.timeStep(record.topic(), headers.getOrderId(), record.serializedValueSize(), () -> this.orchestratorService.finishSagaFail(headers, record.value()));
+    }
+
+    private EventHeaders readHeaders(ConsumerRecord<String, byte[]> record) {
+
+        var transactionId = this.readHeader(record, ESagaHeader.TRANSACTION_ID);
+
+        // Records published without saga headers are routed from the payload, as before.
+        if (isEmpty(transactionId))
+            return this.readHeadersFromPayload(record.value());
+
+        var source = this.readHeader(record, ESagaHeader.SOURCE);
+        var status = this.readHeader(record, ESagaHeader.STATUS);
+
+        return EventHeaders
+                .builder()
+                .eventId(this.readHeader(record, ESagaHeader.EVENT_ID))
+                .orderId(this.readHeader(record, ESagaHeader.ORDER_ID))
+                .transactionId(transactionId)
+                .source(isEmpty(source) ? null : EEventSource.valueOf(source))
+                .status(isEmpty(status) ? null : ESagaStatus.valueOf(status))
+                .build();
+    }
+
+    private String readHeader(ConsumerRecord<String, byte[]> record, ESagaHeader header) {
+
+        var value = record.headers().lastHeader(header.getHeader());
+        return value == null ? null : new String(value.value(), UTF_8);
+    }
+
+    private EventHeaders readHeadersFromPayload(byte[] payload) {
+
+        var event = this.eventCodec.decode(payload);
+        if (event == null)
+            throw new SerializationException("Could not decode event without saga headers");
+
+        return EventHeaders
+                .builder()
+                .eventId(event.getId())
+                .orderId(event.getOrderId())
+                .transactionId(event.getTransactionId())
+                .source(event.getSource())
+                .status(event.getStatus())
+                .build();
     }
 }
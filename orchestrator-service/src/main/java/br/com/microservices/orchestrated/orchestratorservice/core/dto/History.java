@@ -19,4 +19,5 @@ public class History {
     private ESagaStatus status;
     private String message;
     private LocalDateTime createdAt;
+    private int sequence;
 }
@@ -0,0 +1,7 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.enums;
+
+public enum EHistoryMode {
+
+    FULL,
+    DELTA
+}
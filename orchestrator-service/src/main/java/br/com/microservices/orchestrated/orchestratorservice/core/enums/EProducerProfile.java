@@ -0,0 +1,37 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.Map;
+
+/**
+ * Producer settings chosen with spring.kafka.producer-profile. LATENCY sends each record as soon as
+ * possible, THROUGHPUT waits a little to fill larger compressed batches. Both keep idempotence on, so a
+ * retried send neither duplicates a saga event nor reorders the events of an order.
+ */
+@Getter
+@AllArgsConstructor
+public enum EProducerProfile {
+
+    LATENCY(0, 16_384, "none", true, "all", 5),
+    THROUGHPUT(20, 262_144, "lz4", true, "all", 5);
+
+    private final int lingerMs;
+    private final int batchSize;
+    private final String compressionType;
+    private final boolean idempotence;
+    private final String acks;
+    private final int maxInFlightRequests;
+
+    public void applyTo(Map<String, Object> props) {
+
+        props.put(ProducerConfig.LINGER_MS_CONFIG, this.lingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, this.batchSize);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, this.compressionType);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, this.idempotence);
+        props.put(ProducerConfig.ACKS_CONFIG, this.acks);
+        props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, this.maxInFlightRequests);
+    }
+}
@@ -0,0 +1,18 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum ESagaHeader {
+
+    EVENT_ID("saga-event-id"),
+    ORDER_ID("saga-order-id"),
+    TRANSACTION_ID("saga-transaction-id"),
+    SOURCE("saga-source"),
+    STATUS("saga-status"),
+    HISTORY_PART("saga-history-part");
+
+    private String header;
+}
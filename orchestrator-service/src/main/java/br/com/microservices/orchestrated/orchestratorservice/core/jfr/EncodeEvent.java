@@ -0,0 +1,20 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("saga.Encode")
+@Label("Saga Encode")
+@Description("Event encoded to the Kafka payload")
+public class EncodeEvent extends SagaEvent {
+
+    @Label("Format")
+    private String format;
+
+    public void commit(String orderId, String step, int payloadSize, String format) {
+
+        this.format = format;
+        this.commit(orderId, step, payloadSize);
+    }
+}
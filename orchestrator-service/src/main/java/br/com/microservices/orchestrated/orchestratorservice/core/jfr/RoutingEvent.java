@@ -0,0 +1,12 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("saga.Routing")
+@Label("Saga Routing")
+@Description("Lookup of the next topic from the reply's source and status")
+public class RoutingEvent extends SagaEvent {
+
+}
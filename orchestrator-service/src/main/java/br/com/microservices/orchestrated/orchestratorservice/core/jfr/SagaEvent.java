@@ -0,0 +1,43 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base of the saga JFR events. They tell which order and step a slow stack or an allocation burst
+ * belongs to; stack traces are left to the profiler's own samples. The fields are protected because JFR
+ * only records private fields declared by the event class itself.
+ */
+@Category("Saga")
+@StackTrace(false)
+public abstract class SagaEvent extends Event {
+
+    @Label("Order Id")
+    protected String orderId;
+
+    @Label("Step")
+    protected String step;
+
+    @Label("Payload Size")
+    @DataAmount
+    protected int payloadSize;
+
+    /**
+     * Ends the event and commits it, only filling in the fields when the event is enabled and over its
+     * threshold.
+     */
+    public void commit(String orderId, String step, int payloadSize) {
+
+        this.end();
+        if (!this.shouldCommit())
+            return;
+
+        this.orderId = orderId;
+        this.step = step;
+        this.payloadSize = payloadSize;
+        this.commit();
+    }
+}
@@ -0,0 +1,172 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Turns a recording taken from any of the services into a latency and allocation report per saga
+ * step. Allocation comes from the jdk.ObjectAllocationSample events taken on the thread of each saga
+ * event while it was open, so nested events (a decode within a step) are also counted in the outer one.
+ * <p>
+ * Record with {@code -XX:StartFlightRecording=settings=profile,filename=recording.jfr} and run
+ * {@code gradle jfrReport -Precording=recording.jfr}.
+ */
+public class SagaRecordingAnalyzer {
+
+    private static final String SAGA_EVENT_PREFIX = "saga.";
+    private static final String ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample";
+    private static final String ROW_FORMAT = "%-16s %-28s %8s %10s %10s %10s %12s %14s%n";
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length != 1) {
+            System.err.println("Usage: SagaRecordingAnalyzer <recording.jfr>");
+            System.exit(1);
+        }
+
+        var sagaEvents = new ArrayList<RecordedEvent>();
+        var allocations = new HashMap<Long, List<Allocation>>();
+
+        try (var recording = new RecordingFile(Path.of(args[0]))) {
+            while (recording.hasMoreEvents()) {
+
+                var event = recording.readEvent();
+                var type = event.getEventType().getName();
+
+                if (type.startsWith(SAGA_EVENT_PREFIX))
+                    sagaEvents.add(event);
+                else if (ALLOCATION_SAMPLE.equals(type) && event.getThread() != null)
+                    allocations
+                            .computeIfAbsent(event.getThread().getJavaThreadId(), thread -> new ArrayList<>())
+                            .add(new Allocation(toNanos(event.getStartTime()), event.getLong("weight")));
+            }
+        }
+
+        var allocationsByThread = new HashMap<Long, ThreadAllocations>();
+        allocations.forEach((thread, samples) -> allocationsByThread.put(thread, new ThreadAllocations(samples)));
+
+        var steps = new TreeMap<String, StepStats>();
+        for (var event : sagaEvents) {
+            var step = event.getString("step");
+            var key = event.getEventType().getName() + " " + step;
+            var stats = steps.computeIfAbsent(key, ignored -> new StepStats(event.getEventType().getName(), step));
+            stats.add(event.getDuration().toNanos(), event.getInt("payloadSize"), allocatedDuring(event, allocationsByThread));
+        }
+
+        System.out.printf(ROW_FORMAT, "EVENT", "STEP", "COUNT", "P50 ms", "P99 ms", "MAX ms", "AVG BYTES", "ALLOC/EVENT");
+        steps.values().forEach(StepStats::print);
+    }
+
+    private static long allocatedDuring(RecordedEvent event, Map<Long, ThreadAllocations> allocationsByThread) {
+
+        if (event.getThread() == null)
+            return 0;
+
+        var allocations = allocationsByThread.get(event.getThread().getJavaThreadId());
+        return allocations == null ? 0 : allocations.between(toNanos(event.getStartTime()), toNanos(event.getEndTime()));
+    }
+
+    private static long toNanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    private record Allocation(long time, long weight) {
+
+    }
+
+    /**
+     * Samples of one thread sorted by time, with the running total of their weights so the bytes
+     * allocated within a window are found with two binary searches.
+     */
+    private static class ThreadAllocations {
+
+        private final long[] times;
+        private final long[] totals;
+
+        ThreadAllocations(List<Allocation> samples) {
+
+            samples.sort((first, second) -> Long.compare(first.time(), second.time()));
+            this.times = new long[samples.size()];
+            this.totals = new long[samples.size() + 1];
+
+            for (var i = 0; i < samples.size(); i++) {
+                this.times[i] = samples.get(i).time();
+                this.totals[i + 1] = this.totals[i] + samples.get(i).weight();
+            }
+        }
+
+        long between(long start, long end) {
+            return this.totals[this.upperBound(end)] - this.totals[this.lowerBound(start)];
+        }
+
+        private int lowerBound(long time) {
+
+            var low = 0;
+            var high = this.times.length;
+            while (low < high) {
+                var middle = (low + high) >>> 1;
+                if (this.times[middle] < time)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+            return low;
+        }
+
+        private int upperBound(long time) {
+            return time == Long.MAX_VALUE ? this.times.length : this.lowerBound(time + 1);
+        }
+    }
+
+    private static class StepStats {
+
+        private final String type;
+        private final String step;
+        private long[] durations = new long[16];
+        private int count;
+        private long payloadBytes;
+        private long allocatedBytes;
+
+        StepStats(String type, String step) {
+            this.type = type;
+            this.step = step;
+        }
+
+        void add(long duration, int payloadSize, long allocated) {
+
+            if (this.count == this.durations.length)
+                this.durations = Arrays.copyOf(this.durations, this.count * 2);
+
+            this.durations[this.count++] = duration;
+            this.payloadBytes += payloadSize;
+            this.allocatedBytes += allocated;
+        }
+
+        void print() {
+
+            var sorted = Arrays.copyOf(this.durations, this.count);
+            Arrays.sort(sorted);
+            System.out.printf(ROW_FORMAT, this.type, this.step, this.count,
+                    toMillis(percentile(sorted, 0.50)), toMillis(percentile(sorted, 0.99)), toMillis(sorted[this.count - 1]),
+                    this.payloadBytes / this.count, this.allocatedBytes / this.count);
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            return sorted[(int) Math.ceil(percentile * sorted.length) - 1];
+        }
+
+        private static String toMillis(long nanos) {
+            return String.format("%.3f", nanos / 1_000_000.0);
+        }
+    }
+}
@@ -1,26 +1,94 @@
 package br.com.microservices.orchestrated.orchestratorservice.core.producer;
 
+import br.com.microservices.orchestrated.orchestratorservice.config.kafka.DeadLetterRecoverer;
+import br.com.microservices.orchestrated.orchestratorservice.core.dto.EventHeaders;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EHistoryPart;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaHeader;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ETopic;
+import br.com.microservices.orchestrated.orchestratorservice.core.utils.SagaLog;
+import br.com.microservices.orchestrated.orchestratorservice.core.utils.SagaMetrics;
 import lombok.AllArgsConstructor;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.util.ObjectUtils.isEmpty;
+
 @Slf4j
 @Component
 @AllArgsConstructor
 public class SagaOrchestratorProducer {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final SagaMetrics sagaMetrics;
+    private final SagaLog sagaLog;
+    private final SendWindow sendWindow;
+
+    /**
+     * Errors raised while sending, including a send window that stays full, reach the listener, so the
+     * consumed record goes to its retry topic instead of the saga being dropped. Failures reported
+     * later by the producer are dead lettered.
+     */
+    public void sendEvent(byte[] payload, String topic, EventHeaders headers) {
+
+        this.sagaLog.info(log, headers, "Sending event {} to topic {}", headers, topic);
+        this.send(this.createRecord(payload, topic, headers), headers);
+    }
+
+    public void sendHistory(byte[] payload, EventHeaders headers, EHistoryPart historyPart) {
+
+        var topic = ETopic.NOTIFY_ENDING.getTopic();
+        this.sagaLog.info(log, headers, "Sending {} history of event {} to topic {}", historyPart, headers, topic);
+        var record = this.createRecord(payload, topic, headers);
+        this.addHeader(record, ESagaHeader.HISTORY_PART, historyPart.name());
+        this.send(record, headers);
+    }
+
+    private void send(ProducerRecord<String, byte[]> record, EventHeaders headers) {
+
+        sendWindow
+                .send(record.value().length, () -> sagaMetrics.timeSend(record.topic(), headers.getOrderId(), () -> kafkaTemplate.send(record)))
+                .whenComplete((result, e) -> {
+                    if (e != null)
+                        this.deadLetter(record, headers, e);
+                });
+    }
+
+    /**
+     * The producer already retried the send until its delivery timeout, so the record is kept in the
+     * dead letter topic of its destination instead.
+     */
+    private void deadLetter(ProducerRecord<String, byte[]> record, EventHeaders headers, Throwable cause) {
+
+        log.error("Error trying to send event {} to topic {}, sending it to the dead letter topic", headers, record.topic(), cause);
+        var deadLetter = DeadLetterRecoverer.toDeadLetter(record, cause);
+
+        kafkaTemplate
+                .send(deadLetter)
+                .whenComplete((result, e) -> {
+                    if (e != null)
+                        log.error("Error trying to send event {} to dead letter topic {}", headers, deadLetter.topic(), e);
+                    else
+                        sagaMetrics.recordDeadLetter(deadLetter.topic());
+                });
+    }
+
+    private ProducerRecord<String, byte[]> createRecord(byte[] payload, String topic, EventHeaders headers) {
+
+        var record = new ProducerRecord<>(topic, headers.getOrderId(), payload);
+        this.addHeader(record, ESagaHeader.EVENT_ID, headers.getEventId());
+        this.addHeader(record, ESagaHeader.ORDER_ID, headers.getOrderId());
+        this.addHeader(record, ESagaHeader.TRANSACTION_ID, headers.getTransactionId());
+        this.addHeader(record, ESagaHeader.SOURCE, isEmpty(headers.getSource()) ? null : headers.getSource().name());
+        this.addHeader(record, ESagaHeader.STATUS, isEmpty(headers.getStatus()) ? null : headers.getStatus().name());
+        return record;
+    }
 
-    public void sendEvent(String payload, String topic) {
+    private void addHeader(ProducerRecord<String, byte[]> record, ESagaHeader header, String value) {
 
-        try {
-            log.info("Sending event to topic {} with data {}", topic, payload);
-            kafkaTemplate.send(topic, payload);
-        } catch (Exception e) {
-            log.error("Error trying to send data to topic {} with data {}", topic, payload, e);
-        }
+        if (!isEmpty(value))
+            record.headers().add(header.getHeader(), value.getBytes(UTF_8));
     }
 }
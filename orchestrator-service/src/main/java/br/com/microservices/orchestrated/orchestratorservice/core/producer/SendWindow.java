@@ -0,0 +1,103 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.producer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.KafkaException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caps the records and bytes sent but not yet acknowledged. A send waits for room, holding back the
+ * thread that produces instead of piling records into the producer buffer, and fails after the acquire
+ * timeout so the caller's retry path takes over. Occupancy is published as gauges.
+ */
+@Component
+public class SendWindow {
+
+    private static final String RECORDS_METRIC = "kafka.producer.window.records";
+    private static final String BYTES_METRIC = "kafka.producer.window.bytes";
+
+    private final int maxRecords;
+    private final int maxBytes;
+    private final long acquireTimeoutMillis;
+    private final Semaphore records;
+    private final Semaphore bytes;
+    private final MeterRegistry meterRegistry;
+
+    public SendWindow(@Value("${spring.kafka.producer-window.max-records}") int maxRecords,
+                      @Value("${spring.kafka.producer-window.max-bytes}") int maxBytes,
+                      @Value("${spring.kafka.producer-window.acquire-timeout-millis}") long acquireTimeoutMillis,
+                      MeterRegistry meterRegistry) {
+
+        this.maxRecords = maxRecords;
+        this.maxBytes = maxBytes;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.records = new Semaphore(maxRecords, true);
+        this.bytes = new Semaphore(maxBytes, true);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Registered once constructed, so the gauges never see a window that is not fully set up.
+     */
+    @PostConstruct
+    public void registerGauges() {
+
+        Gauge.builder(RECORDS_METRIC, this, window -> window.maxRecords - window.records.availablePermits())
+                .register(this.meterRegistry);
+        Gauge.builder(BYTES_METRIC, this, window -> window.maxBytes - window.bytes.availablePermits())
+                .baseUnit("bytes")
+                .register(this.meterRegistry);
+    }
+
+    /**
+     * Sends once the record fits in the window and frees its room when the send completes. A record
+     * larger than the window takes the whole window.
+     */
+    public <T> CompletableFuture<T> send(int size, Supplier<CompletableFuture<T>> send) {
+
+        var permits = Math.min(size, this.maxBytes);
+        this.acquire(permits);
+
+        CompletableFuture<T> future;
+        try {
+            future = send.get();
+        } catch (RuntimeException e) {
+            this.release(permits);
+            throw e;
+        }
+
+        future.whenComplete((result, e) -> this.release(permits));
+        return future;
+    }
+
+    private void acquire(int permits) {
+
+        var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.acquireTimeoutMillis);
+
+        try {
+            if (!this.records.tryAcquire(this.acquireTimeoutMillis, TimeUnit.MILLISECONDS))
+                throw new KafkaException("Timed out waiting for room in the send window");
+
+            if (!this.bytes.tryAcquire(permits, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                this.records.release();
+                throw new KafkaException("Timed out waiting for room in the send window");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Interrupted while waiting for room in the send window", e);
+        }
+    }
+
+    private void release(int permits) {
+
+        this.bytes.release(permits);
+        this.records.release();
+    }
+}
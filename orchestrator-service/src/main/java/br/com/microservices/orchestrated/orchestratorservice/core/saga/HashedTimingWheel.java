@@ -0,0 +1,204 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.saga;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed timing wheel: scheduling and cancelling a timeout are O(1) no matter how many are pending.
+ * New timeouts are queued lock free and moved into their bucket by a single worker thread, which
+ * visits one bucket per tick and hands the timeouts whose deadline has been reached to the task
+ * executor, so a slow task never delays the other expiries.
+ */
+@Slf4j
+public class HashedTimingWheel {
+
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final int mask;
+    private final Bucket[] buckets;
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Executor taskExecutor;
+    private final Thread worker;
+    private final long startTime;
+    private volatile boolean running = true;
+
+    public HashedTimingWheel(String name, long tickDuration, TimeUnit unit, int ticksPerWheel, Executor taskExecutor) {
+
+        if (tickDuration <= 0 || ticksPerWheel <= 0)
+            throw new IllegalArgumentException("Tick duration and ticks per wheel must be positive.");
+
+        var wheelLength = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        this.taskExecutor = taskExecutor;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.mask = Math.max(wheelLength, 1) - 1;
+        this.buckets = new Bucket[this.mask + 1];
+        for (var i = 0; i < this.buckets.length; i++)
+            this.buckets[i] = new Bucket();
+
+        this.startTime = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+
+        var timeout = new Timeout(task, this.taskExecutor, System.nanoTime() - this.startTime + unit.toNanos(delay));
+        this.pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    public void stop() {
+
+        this.running = false;
+        this.worker.interrupt();
+    }
+
+    private void run() {
+
+        var tick = 0L;
+        while (this.running) {
+
+            var elapsed = this.waitForNextTick(tick);
+            if (elapsed < 0)
+                return;
+
+            this.transferPendingTimeouts(tick);
+            this.buckets[(int) (tick & this.mask)].expireTimeouts(elapsed);
+            tick++;
+        }
+    }
+
+    private long waitForNextTick(long tick) {
+
+        var target = this.tickNanos * (tick + 1);
+        while (true) {
+
+            var elapsed = System.nanoTime() - this.startTime;
+            var sleepMillis = (target - elapsed + 999_999) / 1_000_000;
+            if (sleepMillis <= 0)
+                return elapsed;
+
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                if (!this.running)
+                    return -1;
+            }
+        }
+    }
+
+    private void transferPendingTimeouts(long tick) {
+
+        for (var i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+
+            var timeout = this.pendingTimeouts.poll();
+            if (timeout == null)
+                return;
+
+            if (timeout.isCancelled())
+                continue;
+
+            var calculatedTick = timeout.deadline / this.tickNanos;
+            timeout.remainingRounds = (calculatedTick - tick) / this.buckets.length;
+            this.buckets[(int) (Math.max(calculatedTick, tick) & this.mask)].add(timeout);
+        }
+    }
+
+    private static class Bucket {
+
+        private final List<Timeout> timeouts = new ArrayList<>();
+
+        void add(Timeout timeout) {
+
+            this.timeouts.add(timeout);
+        }
+
+        void expireTimeouts(long elapsed) {
+
+            var kept = 0;
+            for (var i = 0; i < this.timeouts.size(); i++) {
+
+                var timeout = this.timeouts.get(i);
+                if (timeout.isCancelled())
+                    continue;
+
+                if (timeout.remainingRounds <= 0 && timeout.deadline <= elapsed)
+                    timeout.expire();
+                else {
+                    timeout.remainingRounds--;
+                    this.timeouts.set(kept++, timeout);
+                }
+            }
+            this.timeouts.subList(kept, this.timeouts.size()).clear();
+        }
+    }
+
+    public static class Timeout {
+
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+
+        private final Runnable task;
+        private final Executor taskExecutor;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(ST_INIT);
+        private long remainingRounds;
+
+        private Timeout(Runnable task, Executor taskExecutor, long deadline) {
+
+            this.task = task;
+            this.taskExecutor = taskExecutor;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Returns true only if the timeout was still pending, so exactly one of cancel and expiry wins.
+         */
+        public boolean cancel() {
+
+            return this.state.compareAndSet(ST_INIT, ST_CANCELLED);
+        }
+
+        public boolean isCancelled() {
+
+            return this.state.get() == ST_CANCELLED;
+        }
+
+        private void expire() {
+
+            if (!this.state.compareAndSet(ST_INIT, ST_EXPIRED))
+                return;
+
+            try {
+                this.taskExecutor.execute(this::run);
+            } catch (RejectedExecutionException e) {
+                log.error("Expired timeout rejected, the wheel is stopping", e);
+            }
+        }
+
+        public boolean isExpired() {
+
+            return this.state.get() == ST_EXPIRED;
+        }
+
+        private void run() {
+
+            try {
+                this.task.run();
+            } catch (Exception e) {
+                log.error("Error trying to run expired timeout", e);
+            }
+        }
+    }
+}
@@ -1,62 +1,92 @@
 package br.com.microservices.orchestrated.orchestratorservice.core.saga;
 
 import br.com.microservices.orchestrated.orchestratorservice.config.exception.ValidationException;
-import br.com.microservices.orchestrated.orchestratorservice.core.dto.Event;
+import br.com.microservices.orchestrated.orchestratorservice.core.dto.EventHeaders;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource;
 import br.com.microservices.orchestrated.orchestratorservice.core.enums.ETopic;
-import lombok.AllArgsConstructor;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus;
+import br.com.microservices.orchestrated.orchestratorservice.core.jfr.RoutingEvent;
+import br.com.microservices.orchestrated.orchestratorservice.core.utils.SagaLog;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
-
-import static br.com.microservices.orchestrated.orchestratorservice.core.saga.SagaHandler.*;
-import static java.lang.String.format;
 import static org.springframework.util.ObjectUtils.isEmpty;
 
 @Slf4j
 @Component
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class SagaExecutionController {
 
-    private static final String SAGA_LOG_ID = "ORDER ID: %s | TRANSACTION ID: %s | EVENT ID: %s";
+    private static final String SAGA_LOG_ID = "ORDER ID: {} | TRANSACTION ID: {} | EVENT ID: {}";
+
+    private final SagaTransitionTable sagaTransitionTable;
+    private final SagaLog sagaLog;
+
+    @Value(value = "${saga.parallel.enabled}")
+    private boolean parallelEnabled;
 
-    public ETopic getNextTopic(Event event) {
+    public ETopic getNextTopic(EventHeaders headers) {
 
-        if (isEmpty(event.getSource()) || isEmpty(event.getStatus()))
+        if (isEmpty(headers.getSource()) || isEmpty(headers.getStatus()))
             throw new ValidationException("Source and status must be informed!");
 
-        var topic = this.findTopicBySourceAndStatus(event);
-        this.logCurrentSaga(event, topic);
+        var routing = new RoutingEvent();
+        routing.begin();
+        var topic = this.findTopicBySourceAndStatus(headers);
+        routing.commit(headers.getOrderId(), headers.getSource().name(), 0);
+        this.logCurrentSaga(headers, topic);
         return topic;
     }
 
-    private ETopic findTopicBySourceAndStatus(Event event) {
-        return (ETopic) Arrays.stream(SAGA_HANDLER)
-                .filter(row -> this.isEventSourceAndStatusValid(event, row))
-                .map(i -> i[TOPIC_INDEX])
-                .findFirst()
-                .orElseThrow(() -> new ValidationException("Topic not found"));
-    }
+    /**
+     * Returns the group of steps to run in parallel after the source succeeds, or null when the saga
+     * continues sequentially.
+     */
+    public SagaParallelGroup findParallelGroup(EventHeaders headers) {
+
+        if (!this.parallelEnabled || ESagaStatus.SUCCESS != headers.getStatus())
+            return null;
 
-    private boolean isEventSourceAndStatusValid(Event event, Object[] row) {
-        var source = row[EVENT_SOURCE_INDEX];
-        var status = row[SAGA_STATUS_INDEX];
-        return event.getSource().equals(source) && event.getStatus().equals(status);
+        var group = this.sagaTransitionTable.findParallelGroup(headers.getSource());
+        if (group != null)
+            this.sagaLog.info(log, headers, "### CURRENT SAGA: {} | SUCCESS | FORKING TO {} | " + SAGA_LOG_ID, headers.getSource(), group.branches(),
+                    headers.getOrderId(), headers.getTransactionId(), headers.getEventId());
+        return group;
     }
 
-    private void logCurrentSaga(Event event, ETopic topic) {
-        var sagaId = this.createSagaId(event);
-        var source = event.getSource();
+    public ETopic findSuccessTopic(EEventSource participant) {
+        return this.sagaTransitionTable.findSuccessTopic(participant);
+    }
 
-        switch (event.getStatus()) {
+    public ETopic findRollbackTopic(EEventSource participant) {
+        return this.sagaTransitionTable.findTopic(participant, ESagaStatus.ROLLBACK_PENDING);
+    }
 
-            case SUCCESS -> log.info("### CURRENT SAGA: {} | SUCCESS | NEXT TOPIC {} | {}", source, topic, sagaId);
-            case ROLLBACK_PENDING -> log.info("### CURRENT SAGA: {} | SENDING TO ROLLBACK CURRENT SERVICE | NEXT TOPIC {} | {}", source, topic, sagaId);
-            case FAIL -> log.info("### CURRENT SAGA: {} | SENDING TO ROLLBACK PREVIOUS SERVICE | NEXT TOPIC {} | {}", source, topic, sagaId);
-        }
+    private ETopic findTopicBySourceAndStatus(EventHeaders headers) {
+        return this.sagaTransitionTable.findTopic(headers.getSource(), headers.getStatus());
     }
 
-    private String createSagaId(Event event) {
-        return format(SAGA_LOG_ID, event.getPayload().getId(), event.getTransactionId(), event.getId());
+    /**
+     * The saga id is part of the pattern instead of being formatted up front, so the sagas that are not
+     * sampled only keep the arguments until they end.
+     */
+    private void logCurrentSaga(EventHeaders headers, ETopic topic) {
+
+        var source = headers.getSource();
+        var orderId = headers.getOrderId();
+        var transactionId = headers.getTransactionId();
+        var eventId = headers.getEventId();
+
+        switch (headers.getStatus()) {
+
+            case SUCCESS -> this.sagaLog.info(log, headers, "### CURRENT SAGA: {} | SUCCESS | NEXT TOPIC {} | " + SAGA_LOG_ID,
+                    source, topic, orderId, transactionId, eventId);
+            case ROLLBACK_PENDING -> this.sagaLog.info(log, headers, "### CURRENT SAGA: {} | SENDING TO ROLLBACK CURRENT SERVICE | NEXT TOPIC {} | " + SAGA_LOG_ID,
+                    source, topic, orderId, transactionId, eventId);
+            case FAIL -> this.sagaLog.info(log, headers, "### CURRENT SAGA: {} | SENDING TO ROLLBACK PREVIOUS SERVICE | NEXT TOPIC {} | " + SAGA_LOG_ID,
+                    source, topic, orderId, transactionId, eventId);
+        }
     }
 }
@@ -27,7 +27,31 @@ public class SagaHandler {
             { EEventSource.INVENTORY_SERVICE, ESagaStatus.SUCCESS, ETopic.FINISH_SUCCESS },
     };
 
+    public static final Object[][] SAGA_PARTICIPANTS = {
+            { EEventSource.PRODUCT_VALIDATION_SERVICE, ETopic.PRODUCT_VALIDATION_SUCCESS, ETopic.PRODUCT_VALIDATION_FAIL },
+            { EEventSource.PAYMENT_SERVICE, ETopic.PAYMENT_SUCCESS, ETopic.PAYMENT_FAIL },
+            { EEventSource.INVENTORY_SERVICE, ETopic.INVENTORY_SUCCESS, ETopic.INVENTORY_FAIL },
+    };
+
+    public static final Object[][] SAGA_PARALLEL_GROUPS = {
+            { EEventSource.PRODUCT_VALIDATION_SERVICE, new EEventSource[] { EEventSource.PAYMENT_SERVICE, EEventSource.INVENTORY_SERVICE },
+                    EEventSource.PAYMENT_SERVICE, ETopic.FINISH_SUCCESS, ETopic.PRODUCT_VALIDATION_FAIL },
+    };
+
     public static final int EVENT_SOURCE_INDEX = 0;
-    public static final int SAGA_STATUS_INDEX = 0;
-    public static final int TOPIC_INDEX = 0;
+    public static final int SAGA_STATUS_INDEX = 1;
+    public static final int TOPIC_INDEX = 2;
+    public static final int HANDLER_ROW_LENGTH = 3;
+
+    public static final int PARTICIPANT_SOURCE_INDEX = 0;
+    public static final int PARTICIPANT_SUCCESS_TOPIC_INDEX = 1;
+    public static final int PARTICIPANT_FAIL_TOPIC_INDEX = 2;
+    public static final int PARTICIPANT_ROW_LENGTH = 3;
+
+    public static final int PARALLEL_TRIGGER_INDEX = 0;
+    public static final int PARALLEL_BRANCHES_INDEX = 1;
+    public static final int PARALLEL_PAYLOAD_OWNER_INDEX = 2;
+    public static final int PARALLEL_SUCCESS_TOPIC_INDEX = 3;
+    public static final int PARALLEL_FAIL_TOPIC_INDEX = 4;
+    public static final int PARALLEL_ROW_LENGTH = 5;
 }
@@ -0,0 +1,18 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.saga;
+
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ETopic;
+
+import java.util.Set;
+
+/**
+ * Participants started together once {@code trigger} succeeds. When all of them succeed the payload of
+ * {@code payloadOwner} continues to {@code successTopic}; otherwise the succeeded branches are compensated
+ * and the saga goes on to {@code failTopic}.
+ */
+public record SagaParallelGroup(EEventSource trigger,
+                                Set<EEventSource> branches,
+                                EEventSource payloadOwner,
+                                ETopic successTopic,
+                                ETopic failTopic) {
+}
@@ -0,0 +1,122 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.saga;
+
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus;
+import lombok.Getter;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Join state of a {@link SagaParallelGroup} within one saga. Replies arrive on the listener thread and
+ * timeouts on the timeout callback pool, so every transition is synchronized.
+ */
+public class SagaParallelJoin {
+
+    public enum Decision {
+        WAIT,
+        ROLLBACK_BRANCH,
+        CONTINUE,
+        COMPENSATE,
+        FAIL
+    }
+
+    private enum BranchState {
+        PENDING,
+        SUCCEEDED,
+        ROLLING_BACK,
+        COMPENSATING,
+        ROLLED_BACK
+    }
+
+    public record Outcome(Decision decision, Map<EEventSource, byte[]> payloads) {
+    }
+
+    @Getter
+    private final SagaParallelGroup group;
+    private final Map<EEventSource, BranchState> states = new EnumMap<>(EEventSource.class);
+    private final Map<EEventSource, byte[]> payloads = new EnumMap<>(EEventSource.class);
+    private boolean failed;
+    private boolean completed;
+
+    SagaParallelJoin(SagaParallelGroup group) {
+
+        this.group = group;
+        group.branches().forEach(branch -> this.states.put(branch, BranchState.PENDING));
+    }
+
+    public synchronized Outcome onReply(EEventSource branch, ESagaStatus status, byte[] payload) {
+
+        var state = this.states.get(branch);
+        if (this.completed || state == null)
+            return waiting();
+
+        switch (status) {
+            case SUCCESS -> {
+                if (BranchState.PENDING != state)
+                    return waiting();
+
+                this.states.put(branch, BranchState.SUCCEEDED);
+                this.payloads.put(branch, payload);
+            }
+            case ROLLBACK_PENDING -> {
+                if (BranchState.PENDING != state)
+                    return waiting();
+
+                // The branch failed on its own work, it is rolled back like any sequential step.
+                this.states.put(branch, BranchState.ROLLING_BACK);
+                this.failed = true;
+                return new Outcome(Decision.ROLLBACK_BRANCH, Map.of());
+            }
+            case FAIL -> {
+                if (BranchState.ROLLING_BACK != state && BranchState.COMPENSATING != state)
+                    return waiting();
+
+                this.states.put(branch, BranchState.ROLLED_BACK);
+                this.payloads.put(branch, payload);
+            }
+        }
+
+        return this.nextOutcome();
+    }
+
+    private Outcome nextOutcome() {
+
+        if (this.states.values().stream().anyMatch(state -> BranchState.PENDING == state
+                || BranchState.ROLLING_BACK == state || BranchState.COMPENSATING == state))
+            return waiting();
+
+        if (!this.failed) {
+            this.completed = true;
+            return new Outcome(Decision.CONTINUE, this.ownerFirstPayloads());
+        }
+
+        var succeeded = new EnumMap<EEventSource, byte[]>(EEventSource.class);
+        this.states.forEach((branch, state) -> {
+            if (BranchState.SUCCEEDED == state)
+                succeeded.put(branch, this.payloads.get(branch));
+        });
+
+        if (!succeeded.isEmpty()) {
+            succeeded.keySet().forEach(branch -> this.states.put(branch, BranchState.COMPENSATING));
+            return new Outcome(Decision.COMPENSATE, succeeded);
+        }
+
+        this.completed = true;
+        return new Outcome(Decision.FAIL, this.ownerFirstPayloads());
+    }
+
+    private Map<EEventSource, byte[]> ownerFirstPayloads() {
+
+        var ordered = new LinkedHashMap<EEventSource, byte[]>();
+        ordered.put(this.group.payloadOwner(), this.payloads.get(this.group.payloadOwner()));
+        this.payloads.forEach(ordered::putIfAbsent);
+        return ordered;
+    }
+
+    private static Outcome waiting() {
+
+        return new Outcome(Decision.WAIT, Map.of());
+    }
+}
@@ -0,0 +1,168 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.saga;
+
+import br.com.microservices.orchestrated.orchestratorservice.core.dto.EventHeaders;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ETopic;
+import br.com.microservices.orchestrated.orchestratorservice.core.utils.SagaMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Tracks every saga between start and finish. Each step sent to a participant gets a deadline in the
+ * timing wheel; a reply cancels it, otherwise the step is handed to the timeout callback, which runs on
+ * its own pool since it routes the saga and sends to Kafka. Steps are kept per participant, so the
+ * branches of a parallel group are timed independently.
+ */
+@Slf4j
+@Component
+public class SagaRegistry {
+
+    private final Map<String, InFlightSaga> sagas = new ConcurrentHashMap<>();
+    private final SagaTransitionTable sagaTransitionTable;
+    private final SagaMetrics sagaMetrics;
+    private final ExecutorService timeoutExecutor;
+    private final HashedTimingWheel timingWheel;
+    private final long stepTimeoutMillis;
+
+    public SagaRegistry(SagaTransitionTable sagaTransitionTable,
+                        SagaMetrics sagaMetrics,
+                        @Value("${saga.timeout.step-millis}") long stepTimeoutMillis,
+                        @Value("${saga.timeout.tick-millis}") long tickMillis,
+                        @Value("${saga.timeout.ticks-per-wheel}") int ticksPerWheel,
+                        @Value("${saga.timeout.callback-threads}") int callbackThreads) {
+
+        this.sagaTransitionTable = sagaTransitionTable;
+        this.sagaMetrics = sagaMetrics;
+        this.stepTimeoutMillis = stepTimeoutMillis;
+        this.timeoutExecutor = Executors.newFixedThreadPool(callbackThreads, Thread.ofPlatform().name("saga-timeout-callback-", 0).daemon(true).factory());
+        this.timingWheel = new HashedTimingWheel("saga-timeout", tickMillis, TimeUnit.MILLISECONDS, ticksPerWheel, this.timeoutExecutor);
+    }
+
+    public void register(EventHeaders headers) {
+
+        var previous = this.sagas.put(headers.getTransactionId(), new InFlightSaga(headers.getOrderId(), System.nanoTime()));
+        if (previous != null)
+            previous.cancelSteps();
+    }
+
+    /**
+     * Arms the deadline for the step about to be sent. Must be called before sending, so a fast reply
+     * always finds its step. Topics consumed by the orchestrator itself are not timed.
+     */
+    public void await(EventHeaders headers, byte[] payload, ETopic topic, Consumer<PendingStep> onTimeout) {
+
+        var participant = this.sagaTransitionTable.findParticipant(topic);
+        if (participant == null)
+            return;
+
+        var saga = this.sagas.computeIfAbsent(headers.getTransactionId(), id -> new InFlightSaga(headers.getOrderId(), System.nanoTime()));
+        var step = new PendingStep(headers, payload, participant, this.sagaTransitionTable.isCompensationTopic(topic));
+        step.timeout = this.timingWheel.schedule(() -> onTimeout.accept(step), this.stepTimeoutMillis, TimeUnit.MILLISECONDS);
+
+        var previous = saga.steps.put(participant, step);
+        if (previous != null)
+            previous.timeout.cancel();
+    }
+
+    /**
+     * Returns false when the reply must be discarded: it is not the one the saga is waiting for, or
+     * its step already timed out and the saga has been routed to compensation.
+     */
+    public boolean acknowledge(EventHeaders headers) {
+
+        var saga = this.sagas.get(headers.getTransactionId());
+        var step = saga == null ? null : saga.steps.get(headers.getSource());
+        if (step == null)
+            return saga == null || saga.steps.isEmpty();
+
+        if (!step.accepts(headers.getSource(), headers.getStatus()))
+            return false;
+
+        return step.timeout.cancel();
+    }
+
+    public void finish(EventHeaders headers) {
+
+        var saga = this.sagas.remove(headers.getTransactionId());
+        if (saga == null) {
+            this.sagaMetrics.recordSagaFinished(headers.getStatus(), null);
+            return;
+        }
+
+        saga.cancelSteps();
+        var duration = System.nanoTime() - saga.startedAt;
+        this.sagaMetrics.recordSagaFinished(headers.getStatus(), duration);
+        log.info("Saga for order {} finished in {} ms", saga.orderId, TimeUnit.NANOSECONDS.toMillis(duration));
+    }
+
+    public SagaParallelJoin startJoin(EventHeaders headers, SagaParallelGroup group) {
+
+        var saga = this.sagas.computeIfAbsent(headers.getTransactionId(), id -> new InFlightSaga(headers.getOrderId(), System.nanoTime()));
+        var join = new SagaParallelJoin(group);
+        saga.join = join;
+        return join;
+    }
+
+    /**
+     * Returns the join waiting for the reply's source, or null when the reply belongs to a sequential step.
+     */
+    public SagaParallelJoin findJoin(EventHeaders headers) {
+
+        var saga = this.sagas.get(headers.getTransactionId());
+        var join = saga == null ? null : saga.join;
+        return join != null && join.getGroup().branches().contains(headers.getSource()) ? join : null;
+    }
+
+    @PreDestroy
+    public void stop() {
+
+        this.timingWheel.stop();
+        this.timeoutExecutor.shutdown();
+    }
+
+    @RequiredArgsConstructor
+    private static class InFlightSaga {
+
+        private final String orderId;
+        private final long startedAt;
+        private final Map<EEventSource, PendingStep> steps = new ConcurrentHashMap<>();
+        private volatile SagaParallelJoin join;
+
+        void cancelSteps() {
+
+            this.steps.values().forEach(step -> step.timeout.cancel());
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class PendingStep {
+
+        private final EventHeaders headers;
+        private final byte[] payload;
+        private final EEventSource participant;
+        private final boolean compensation;
+
+        @Getter(AccessLevel.NONE)
+        private volatile HashedTimingWheel.Timeout timeout;
+
+        private boolean accepts(EEventSource source, ESagaStatus status) {
+
+            // A late success reply must not resume a saga that is already compensating this participant.
+            return this.participant == source && (!this.compensation || ESagaStatus.FAIL == status);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.saga;
+
+import br.com.microservices.orchestrated.orchestratorservice.config.exception.ValidationException;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ETopic;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import static br.com.microservices.orchestrated.orchestratorservice.core.saga.SagaHandler.*;
+import static java.lang.String.format;
+
+/**
+ * Typed view of {@link SagaHandler#SAGA_HANDLER}, {@link SagaHandler#SAGA_PARTICIPANTS} and
+ * {@link SagaHandler#SAGA_PARALLEL_GROUPS}, compiled
+ * and validated once at startup. Topics are stored in a flat array indexed by the ordinals of source
+ * and status, so every lookup is a single array access instead of a scan over the handler rows.
+ */
+@Component
+public class SagaTransitionTable {
+
+    private static final int STATUS_COUNT = ESagaStatus.values().length;
+
+    private final ETopic[] topics;
+    private final Map<ETopic, EEventSource> participantsByTopic = new EnumMap<>(ETopic.class);
+    private final Set<ETopic> compensationTopics = EnumSet.noneOf(ETopic.class);
+    private final Map<EEventSource, ETopic> successTopicsByParticipant = new EnumMap<>(EEventSource.class);
+    private final Map<EEventSource, SagaParallelGroup> parallelGroupsByTrigger = new EnumMap<>(EEventSource.class);
+
+    public SagaTransitionTable() {
+
+        this(SAGA_HANDLER, SAGA_PARTICIPANTS, SAGA_PARALLEL_GROUPS);
+    }
+
+    public SagaTransitionTable(Object[][] handler, Object[][] participants, Object[][] parallelGroups) {
+
+        this.topics = new ETopic[EEventSource.values().length * STATUS_COUNT];
+        for (var row : handler)
+            this.addTransition(row);
+
+        this.validateMissingTransitions();
+
+        for (var row : participants)
+            this.addParticipant(row);
+
+        for (var row : parallelGroups)
+            this.addParallelGroup(row);
+    }
+
+    public ETopic findTopic(EEventSource source, ESagaStatus status) {
+
+        var topic = this.topics[indexOf(source, status)];
+
+        if (topic == null)
+            throw new ValidationException("Topic not found");
+
+        return topic;
+    }
+
+    /**
+     * Returns the participant that consumes the topic, or null when the topic is handled by the orchestrator itself.
+     */
+    public EEventSource findParticipant(ETopic topic) {
+
+        return this.participantsByTopic.get(topic);
+    }
+
+    public boolean isCompensationTopic(ETopic topic) {
+
+        return this.compensationTopics.contains(topic);
+    }
+
+    public ETopic findSuccessTopic(EEventSource participant) {
+
+        return this.successTopicsByParticipant.get(participant);
+    }
+
+    /**
+     * Returns the group started when the source succeeds, or null when the saga continues sequentially.
+     */
+    public SagaParallelGroup findParallelGroup(EEventSource trigger) {
+
+        return this.parallelGroupsByTrigger.get(trigger);
+    }
+
+    private void addTransition(Object[] row) {
+
+        if (row.length != HANDLER_ROW_LENGTH
+                || !(row[EVENT_SOURCE_INDEX] instanceof EEventSource source)
+                || !(row[SAGA_STATUS_INDEX] instanceof ESagaStatus status)
+                || !(row[TOPIC_INDEX] instanceof ETopic topic))
+            throw new ValidationException("Saga handler row must be informed as source, status and topic!");
+
+        var index = indexOf(source, status);
+
+        if (this.topics[index] != null)
+            throw new ValidationException(format("Duplicated saga transition for source %s and status %s.", source, status));
+
+        this.topics[index] = topic;
+    }
+
+    private void addParticipant(Object[] row) {
+
+        if (row.length != PARTICIPANT_ROW_LENGTH
+                || !(row[PARTICIPANT_SOURCE_INDEX] instanceof EEventSource source)
+                || !(row[PARTICIPANT_SUCCESS_TOPIC_INDEX] instanceof ETopic successTopic)
+                || !(row[PARTICIPANT_FAIL_TOPIC_INDEX] instanceof ETopic failTopic))
+            throw new ValidationException("Saga participant row must be informed as source, success topic and fail topic!");
+
+        if (this.topics[indexOf(source, ESagaStatus.ROLLBACK_PENDING)] != failTopic)
+            throw new ValidationException(format("Rollback of participant %s must be routed to %s.", source, failTopic));
+
+        if (this.participantsByTopic.putIfAbsent(successTopic, source) != null
+                || this.participantsByTopic.putIfAbsent(failTopic, source) != null)
+            throw new ValidationException(format("Duplicated saga participant topics for source %s.", source));
+
+        this.compensationTopics.add(failTopic);
+        this.successTopicsByParticipant.put(source, successTopic);
+    }
+
+    private void addParallelGroup(Object[] row) {
+
+        if (row.length != PARALLEL_ROW_LENGTH
+                || !(row[PARALLEL_TRIGGER_INDEX] instanceof EEventSource trigger)
+                || !(row[PARALLEL_BRANCHES_INDEX] instanceof EEventSource[] branches)
+                || !(row[PARALLEL_PAYLOAD_OWNER_INDEX] instanceof EEventSource payloadOwner)
+                || !(row[PARALLEL_SUCCESS_TOPIC_INDEX] instanceof ETopic successTopic)
+                || !(row[PARALLEL_FAIL_TOPIC_INDEX] instanceof ETopic failTopic))
+            throw new ValidationException("Saga parallel group row must be informed as trigger, branches, payload owner, success topic and fail topic!");
+
+        var branchSet = EnumSet.noneOf(EEventSource.class);
+        for (var branch : branches) {
+            if (!this.successTopicsByParticipant.containsKey(branch) || !branchSet.add(branch))
+                throw new ValidationException(format("Branch %s of parallel group %s must be a distinct saga participant.", branch, trigger));
+        }
+
+        if (branchSet.size() < 2 || !branchSet.contains(payloadOwner))
+            throw new ValidationException(format("Parallel group %s needs at least two branches including its payload owner.", trigger));
+
+        if (this.parallelGroupsByTrigger.putIfAbsent(trigger, new SagaParallelGroup(trigger, branchSet, payloadOwner, successTopic, failTopic)) != null)
+            throw new ValidationException(format("Duplicated saga parallel group for trigger %s.", trigger));
+    }
+
+    private void validateMissingTransitions() {
+
+        for (var source : EEventSource.values()) {
+            for (var status : ESagaStatus.values()) {
+
+                if (this.topics[indexOf(source, status)] == null && isTransitionRequired(source, status))
+                    throw new ValidationException(format("Missing saga transition for source %s and status %s.", source, status));
+            }
+        }
+    }
+
+    private static boolean isTransitionRequired(EEventSource source, ESagaStatus status) {
+
+        // The orchestrator never asks itself to roll back, every participant must handle all statuses.
+        return EEventSource.ORCHESTRATOR != source || ESagaStatus.ROLLBACK_PENDING != status;
+    }
+
+    private static int indexOf(EEventSource source, ESagaStatus status) {
+
+        return source.ordinal() * STATUS_COUNT + status.ordinal();
+    }
+}
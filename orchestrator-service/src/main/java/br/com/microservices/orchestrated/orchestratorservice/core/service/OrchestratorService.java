@@ -1,84 +1,219 @@
 package br.com.microservices.orchestrated.orchestratorservice.core.service;
 
-import br.com.microservices.orchestrated.orchestratorservice.core.dto.Event;
+import br.com.microservices.orchestrated.orchestratorservice.core.dto.EventHeaders;
 import br.com.microservices.orchestrated.orchestratorservice.core.dto.History;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventFormat;
 import br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EHistoryMode;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EHistoryPart;
 import br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus;
 import br.com.microservices.orchestrated.orchestratorservice.core.enums.ETopic;
+import br.com.microservices.orchestrated.orchestratorservice.core.jfr.EncodeEvent;
 import br.com.microservices.orchestrated.orchestratorservice.core.producer.SagaOrchestratorProducer;
 import br.com.microservices.orchestrated.orchestratorservice.core.saga.SagaExecutionController;
+import br.com.microservices.orchestrated.orchestratorservice.core.saga.SagaParallelGroup;
+import br.com.microservices.orchestrated.orchestratorservice.core.saga.SagaParallelJoin;
+import br.com.microservices.orchestrated.orchestratorservice.core.saga.SagaRegistry;
+import br.com.microservices.orchestrated.orchestratorservice.core.utils.EventCodec;
 import br.com.microservices.orchestrated.orchestratorservice.core.utils.JsonUtil;
-import lombok.AllArgsConstructor;
+import br.com.microservices.orchestrated.orchestratorservice.core.utils.SagaLog;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 
 @Slf4j
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class OrchestratorService {
 
     private final JsonUtil jsonUtil;
+    private final EventCodec eventCodec;
     private final SagaOrchestratorProducer sagaOrchestratorProducer;
     private final SagaExecutionController sagaExecutionController;
+    private final SagaRegistry sagaRegistry;
+    private final SagaLog sagaLog;
 
-    public void startSaga(Event event) {
+    @Value(value = "${saga.history.mode}")
+    private EHistoryMode historyMode;
 
-        event.setSource(EEventSource.ORCHESTRATOR);
-        event.setStatus(ESagaStatus.SUCCESS);
-        var topic = getTopic(event);
+    public void startSaga(EventHeaders headers, byte[] payload) {
+
+        headers.setSource(EEventSource.ORCHESTRATOR);
+        headers.setStatus(ESagaStatus.SUCCESS);
+        var topic = getTopic(headers);
         log.info("SAGA STARTED!");
-        this.addHistory(event, "Saga started!");
-        this.sendToOrchestratorProducerWithTopic(event, topic);
+        var event = this.addHistory(headers, payload, "Saga started!");
+        this.sagaRegistry.register(headers);
+        this.sendToOrchestratorProducerWithTopic(headers, event, topic);
+        this.notifyPartialHistory(headers, event);
     }
 
-    public void finishSagaSuccess(Event event) {
+    public void finishSagaSuccess(EventHeaders headers, byte[] payload) {
 
-        event.setSource(EEventSource.ORCHESTRATOR);
-        event.setStatus(ESagaStatus.SUCCESS);
-        log.info("SAGA FINISHED SUCCESSFULLY! ".concat(event.getId()));
-        this.addHistory(event, "Saga finished successfully!");
-        this.notifyFinishedSaga(event);
+        headers.setSource(EEventSource.ORCHESTRATOR);
+        headers.setStatus(ESagaStatus.SUCCESS);
+        log.info("SAGA FINISHED SUCCESSFULLY! {}", headers.getEventId());
+        var event = this.addHistory(headers, payload, "Saga finished successfully!");
+        this.sagaRegistry.finish(headers);
+        this.notifyFinishedSaga(headers, event);
+        this.sagaLog.finish(headers);
     }
 
-    public void finishSagaFail(Event event) {
+    public void finishSagaFail(EventHeaders headers, byte[] payload) {
 
-        event.setSource(EEventSource.ORCHESTRATOR);
-        event.setStatus(ESagaStatus.FAIL);
-        log.info("SAGA FINISHED WITH ERRORS FOR EVENT {} ".concat(event.getId()));
-        this.addHistory(event, "Saga finished with errors!!");
-        this.notifyFinishedSaga(event);
+        headers.setSource(EEventSource.ORCHESTRATOR);
+        headers.setStatus(ESagaStatus.FAIL);
+        log.info("SAGA FINISHED WITH ERRORS FOR EVENT {}", headers.getEventId());
+        var event = this.addHistory(headers, payload, "Saga finished with errors!!");
+        this.sagaRegistry.finish(headers);
+        this.notifyFinishedSaga(headers, event);
+        this.sagaLog.finish(headers);
     }
 
-    public void continueSaga(Event event) {
+    /**
+     * Routes on the headers only, the payload written by the participant is forwarded untouched.
+     */
+    public void continueSaga(EventHeaders headers, byte[] payload) {
+
+        if (!this.sagaRegistry.acknowledge(headers)) {
+            log.info("SAGA REPLY DISCARDED FOR EVENT {}, the step is no longer awaited.", headers.getEventId());
+            return;
+        }
 
-        var topic = this.getTopic(event);
-        log.info("SAGA CONTINUING FOR EVENT {} ".concat(event.getId()));
-        this.sendToOrchestratorProducerWithTopic(event, topic);
+        this.sagaLog.info(log, headers, "SAGA CONTINUING FOR EVENT {}", headers.getEventId());
+        this.routeSaga(headers, payload);
+        this.notifyPartialHistory(headers, payload);
     }
 
-    private ETopic getTopic(Event event) {
-        return this.sagaExecutionController.getNextTopic(event);
+    private void timeoutSaga(SagaRegistry.PendingStep step) {
+
+        var headers = step.getHeaders();
+        headers.setSource(step.getParticipant());
+        byte[] event;
+
+        if (step.isCompensation()) {
+            headers.setStatus(ESagaStatus.FAIL);
+            event = this.addHistory(headers, step.getPayload(), "Rollback timed out, continuing compensation without confirmation!");
+        } else {
+            headers.setStatus(ESagaStatus.ROLLBACK_PENDING);
+            event = this.addHistory(headers, step.getPayload(), "Saga step timed out!");
+        }
+
+        log.info("SAGA STEP TIMED OUT FOR EVENT {} WAITING FOR {}", headers.getEventId(), step.getParticipant());
+        this.routeSaga(headers, event);
+        this.notifyPartialHistory(headers, event);
     }
 
-    private void addHistory(Event event, String message) {
+    private void routeSaga(EventHeaders headers, byte[] payload) {
+
+        var join = this.sagaRegistry.findJoin(headers);
+        if (join != null) {
+            this.joinParallelStep(headers, payload, join);
+            return;
+        }
+
+        var group = this.sagaExecutionController.findParallelGroup(headers);
+        if (group != null) {
+            this.forkParallelSteps(headers, payload, group);
+            return;
+        }
+
+        this.sendToOrchestratorProducerWithTopic(headers, payload, this.getTopic(headers));
+    }
+
+    /**
+     * Sends the same payload to every branch of the group. Each branch replies on its own and the
+     * replies are joined per transaction before the saga moves on.
+     */
+    private void forkParallelSteps(EventHeaders headers, byte[] payload, SagaParallelGroup group) {
+
+        this.sagaRegistry.startJoin(headers, group);
+        for (var branch : group.branches()) {
+            var branchHeaders = headers.toBuilder().source(branch).build();
+            this.sendToOrchestratorProducerWithTopic(branchHeaders, payload, this.sagaExecutionController.findSuccessTopic(branch));
+        }
+    }
+
+    private void joinParallelStep(EventHeaders headers, byte[] payload, SagaParallelJoin join) {
+
+        var group = join.getGroup();
+        var outcome = join.onReply(headers.getSource(), headers.getStatus(), payload);
+
+        switch (outcome.decision()) {
+            case WAIT -> log.info("SAGA BRANCH {} REPLIED WITH {} FOR EVENT {}, WAITING FOR THE OTHER BRANCHES",
+                    headers.getSource(), headers.getStatus(), headers.getEventId());
+            case ROLLBACK_BRANCH -> this.sendToOrchestratorProducerWithTopic(headers, payload, this.getTopic(headers));
+            case COMPENSATE -> outcome.payloads().forEach((branch, branchPayload) -> {
+                var branchHeaders = headers.toBuilder().source(branch).status(ESagaStatus.ROLLBACK_PENDING).build();
+                log.info("SAGA COMPENSATING SUCCEEDED BRANCH {} FOR EVENT {}", branch, headers.getEventId());
+                this.sendToOrchestratorProducerWithTopic(branchHeaders, branchPayload, this.sagaExecutionController.findRollbackTopic(branch));
+            });
+            case CONTINUE -> this.sendJoinedPayload(headers, outcome, ESagaStatus.SUCCESS, group.successTopic());
+            case FAIL -> this.sendJoinedPayload(headers, outcome, ESagaStatus.FAIL, group.failTopic());
+        }
+    }
+
+    private void sendJoinedPayload(EventHeaders headers, SagaParallelJoin.Outcome outcome, ESagaStatus status, ETopic topic) {
+
+        // The payload owner comes first, the other branches only contribute their history.
+        var owner = outcome.payloads().keySet().iterator().next();
+        var payloads = new ArrayList<>(outcome.payloads().values());
+        var ownerPayload = payloads.remove(0);
+        var joinedHeaders = headers.toBuilder().source(owner).status(status).build();
+        log.info("SAGA BRANCHES JOINED WITH {} FOR EVENT {}, NEXT TOPIC {}", status, headers.getEventId(), topic);
+        this.sendToOrchestratorProducerWithTopic(joinedHeaders, this.eventCodec.mergeHistory(ownerPayload, payloads), topic);
+    }
+
+    private ETopic getTopic(EventHeaders headers) {
+        return this.sagaExecutionController.getNextTopic(headers);
+    }
+
+    private byte[] addHistory(EventHeaders headers, byte[] payload, String message) {
         var history = History
                 .builder()
-                .source(event.getSource())
-                .status(event.getStatus())
+                .source(headers.getSource())
+                .status(headers.getStatus())
                 .message(message)
                 .createdAt(LocalDateTime.now())
                 .build();
 
-        event.addToHistory(history);
+        var encode = new EncodeEvent();
+        encode.begin();
+
+        // Keeps the format the payload arrived in, so participants on either format can read it back.
+        var binary = EventCodec.isBinary(payload);
+        var event = binary
+                ? this.eventCodec.splice(payload, headers.getSource(), headers.getStatus(), history)
+                : this.jsonUtil.splice(payload, headers.getSource(), headers.getStatus(), history);
+
+        encode.commit(headers.getOrderId(), headers.getSource().name(), event.length, (binary ? EEventFormat.BINARY : EEventFormat.JSON).name());
+        return event;
+    }
+
+    private void notifyFinishedSaga(EventHeaders headers, byte[] payload) {
+
+        if (EHistoryMode.DELTA == this.historyMode)
+            this.sagaOrchestratorProducer.sendHistory(payload, headers, EHistoryPart.FINAL);
+        else
+            this.sagaOrchestratorProducer.sendEvent(payload, ETopic.NOTIFY_ENDING.getTopic(), headers);
     }
 
-    private void notifyFinishedSaga(Event event) {
-        this.sagaOrchestratorProducer.sendEvent(this.jsonUtil.toJson(event), ETopic.NOTIFY_ENDING.getTopic());
+    /**
+     * In delta mode each hop carries only the entries added by its sender, so they are handed to the
+     * order service as they pass and merged there when the saga finishes.
+     */
+    private void notifyPartialHistory(EventHeaders headers, byte[] payload) {
+
+        if (EHistoryMode.DELTA == this.historyMode)
+            this.sagaOrchestratorProducer.sendHistory(payload, headers, EHistoryPart.PARTIAL);
     }
 
-    private void sendToOrchestratorProducerWithTopic(Event event, ETopic topic) {
-        this.sagaOrchestratorProducer.sendEvent(this.jsonUtil.toJson(event), topic.getTopic());
+    private void sendToOrchestratorProducerWithTopic(EventHeaders headers, byte[] payload, ETopic topic) {
+        this.sagaRegistry.await(headers, payload, topic, this::timeoutSaga);
+        this.sagaOrchestratorProducer.sendEvent(payload, topic.getTopic(), headers);
     }
 }
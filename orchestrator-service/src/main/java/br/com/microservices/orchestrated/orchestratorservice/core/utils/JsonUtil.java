@@ -2,16 +2,32 @@ package br.com.microservices.orchestrated.orchestratorservice.core.utils;
 
 
 import br.com.microservices.orchestrated.orchestratorservice.core.dto.Event;
+import br.com.microservices.orchestrated.orchestratorservice.core.dto.History;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
 @Slf4j
 @Component
 @AllArgsConstructor
 public class JsonUtil {
 
+    private static final String SOURCE_FIELD = "source";
+    private static final String STATUS_FIELD = "status";
+    private static final String HISTORY_FIELD = "eventHistory";
+    private static final String SEQUENCE_FIELD = "historySequence";
+
     private final ObjectMapper objectMapper;
 
     public String toJson(Object obj) {
@@ -32,4 +48,202 @@ public class JsonUtil {
             return null;
         }
     }
+
+    public Event toEvent(byte[] json) {
+
+        try {
+            return objectMapper.readValue(json, Event.class);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Rewrites the top level source, status and history sequence of a serialized event and appends one
+     * history entry. Only those values are touched, every other byte is copied as is instead of binding
+     * the whole event.
+     */
+    public byte[] splice(byte[] json, EEventSource source, ESagaStatus status, History history) {
+
+        try {
+            return this.spliceFields(json, source, status, history);
+        } catch (Exception e) {
+            log.error("Error trying to splice event, binding the whole event instead", e);
+            return this.bindAndAppend(json, source, status, history);
+        }
+    }
+
+    private byte[] spliceFields(byte[] json, EEventSource source, ESagaStatus status, History history) throws IOException {
+
+        var sourceValue = objectMapper.writeValueAsBytes(source);
+        var statusValue = objectMapper.writeValueAsBytes(status);
+        var edits = new ArrayList<Edit>();
+        var missingFields = new ByteArrayOutputStream();
+        var hasFields = false;
+        var hasSource = false;
+        var hasStatus = false;
+        var hasSequence = false;
+        var sequence = 0;
+        HistorySlot historySlot = null;
+
+        try (var parser = objectMapper.getFactory().createParser(json)) {
+
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new IOException("Event must be a JSON object.");
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+                hasFields = true;
+                var name = parser.getCurrentName();
+                var value = parser.nextToken();
+                var start = (int) parser.getTokenLocation().getByteOffset();
+
+                switch (name) {
+                    case SOURCE_FIELD -> {
+                        hasSource = true;
+                        edits.add(new Edit(start, endOfValue(parser, value), sourceValue));
+                    }
+                    case STATUS_FIELD -> {
+                        hasStatus = true;
+                        edits.add(new Edit(start, endOfValue(parser, value), statusValue));
+                    }
+                    case SEQUENCE_FIELD -> {
+                        hasSequence = true;
+                        sequence = value == JsonToken.VALUE_NUMBER_INT ? parser.getIntValue() : 0;
+                        edits.add(new Edit(start, endOfValue(parser, value), String.valueOf(sequence + 1).getBytes()));
+                    }
+                    case HISTORY_FIELD -> historySlot = findHistorySlot(json, parser, value, start);
+                    default -> parser.skipChildren();
+                }
+            }
+
+            if (parser.currentToken() != JsonToken.END_OBJECT)
+                throw new IOException("Event must end with a JSON object.");
+
+            history.setSequence(sequence + 1);
+            var historyValue = objectMapper.writeValueAsBytes(history);
+            if (historySlot != null)
+                edits.add(historySlot.toEdit(historyValue));
+
+            var end = (int) parser.getTokenLocation().getByteOffset();
+            hasFields = writeMissingField(missingFields, hasFields, hasSource, SOURCE_FIELD, sourceValue);
+            hasFields = writeMissingField(missingFields, hasFields, hasStatus, STATUS_FIELD, statusValue);
+            hasFields = writeMissingField(missingFields, hasFields, hasSequence, SEQUENCE_FIELD, String.valueOf(sequence + 1).getBytes());
+            writeMissingField(missingFields, hasFields, historySlot != null, HISTORY_FIELD, wrapInArray(historyValue));
+            edits.add(new Edit(end, end, missingFields.toByteArray()));
+        }
+
+        return applyEdits(json, edits);
+    }
+
+    private static int endOfValue(JsonParser parser, JsonToken value) throws IOException {
+
+        if (value.isStructStart())
+            parser.skipChildren();
+        else
+            parser.getText();
+
+        return (int) parser.getCurrentLocation().getByteOffset();
+    }
+
+    private static HistorySlot findHistorySlot(byte[] json, JsonParser parser, JsonToken value, int start) throws IOException {
+
+        if (value != JsonToken.START_ARRAY)
+            return new HistorySlot(start, endOfValue(parser, value), true, false);
+
+        parser.skipChildren();
+        var end = (int) parser.getTokenLocation().getByteOffset();
+        return new HistorySlot(end, end, false, !isBlank(json, start + 1, end));
+    }
+
+    private static boolean writeMissingField(ByteArrayOutputStream out, boolean hasFields, boolean present,
+                                             String name, byte[] value) {
+
+        if (present)
+            return hasFields;
+
+        if (hasFields)
+            out.write(',');
+
+        out.writeBytes(('"' + name + "\":").getBytes());
+        out.writeBytes(value);
+        return true;
+    }
+
+    private static byte[] wrapInArray(byte[] value) {
+
+        var array = new byte[value.length + 2];
+        array[0] = '[';
+        System.arraycopy(value, 0, array, 1, value.length);
+        array[array.length - 1] = ']';
+        return array;
+    }
+
+    private static boolean isBlank(byte[] json, int from, int to) {
+
+        for (var i = from; i < to; i++) {
+            if (!Character.isWhitespace(json[i]))
+                return false;
+        }
+        return true;
+    }
+
+    private static byte[] applyEdits(byte[] json, List<Edit> edits) {
+
+        edits.sort(Comparator.comparingInt(Edit::start));
+        var out = new ByteArrayOutputStream(json.length + edits.stream().mapToInt(edit -> edit.value().length).sum());
+        var position = 0;
+
+        for (var edit : edits) {
+            out.write(json, position, edit.start() - position);
+            out.writeBytes(edit.value());
+            position = edit.end();
+        }
+
+        out.write(json, position, json.length - position);
+        return out.toByteArray();
+    }
+
+    private byte[] bindAndAppend(byte[] json, EEventSource source, ESagaStatus status, History history) {
+
+        var event = this.toEvent(json);
+        if (event == null)
+            return json;
+
+        event.setSource(source);
+        event.setStatus(status);
+        event.addToHistory(history);
+
+        try {
+            return objectMapper.writeValueAsBytes(event);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return json;
+        }
+    }
+
+    private record Edit(int start, int end, byte[] value) {
+
+    }
+
+    /**
+     * Where the new history entry goes: replacing a null value with a new array, or appended to the
+     * existing array after a comma when it is not empty.
+     */
+    private record HistorySlot(int start, int end, boolean wrap, boolean comma) {
+
+        Edit toEdit(byte[] entry) {
+
+            if (this.wrap)
+                return new Edit(this.start, this.end, wrapInArray(entry));
+
+            if (!this.comma)
+                return new Edit(this.start, this.end, entry);
+
+            var value = new byte[entry.length + 1];
+            value[0] = ',';
+            System.arraycopy(entry, 0, value, 1, entry.length);
+            return new Edit(this.start, this.end, value);
+        }
+    }
 }
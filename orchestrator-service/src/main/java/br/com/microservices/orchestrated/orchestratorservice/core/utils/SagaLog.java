@@ -0,0 +1,146 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.utils;
+
+import br.com.microservices.orchestrated.orchestratorservice.core.dto.EventHeaders;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which sagas are logged in detail and keeps logged payloads under a size cap. Sagas are
+ * sampled on the hash of their order id, so every service keeps the same sagas and a sampled saga is
+ * logged end to end. Failed and compensating hops are always logged.
+ * <p>
+ * The orchestrator sees every hop, so the lines of a saga that is not sampled are kept until it ends:
+ * they are written, marked with the time they were deferred from, once it fails or starts compensating,
+ * and dropped when it finishes successfully. At most logging.saga.deferred-max-sagas sagas are kept,
+ * sagas started past that only have their failed hops logged. Sagas that never finish here, or replies
+ * arriving after the finish, are swept once older than logging.saga.deferred-max-age-millis.
+ */
+@Component
+public class SagaLog {
+
+    private static final int SAMPLE_BUCKETS = 10_000;
+    private static final int MAX_DEFERRED_LINES = 64;
+
+    private final Map<String, DeferredSaga> deferred = new ConcurrentHashMap<>();
+
+    @Value(value = "${logging.saga.sample-rate}")
+    private double sampleRate;
+
+    @Value(value = "${logging.saga.payload-max-length}")
+    private int payloadMaxLength;
+
+    @Value(value = "${logging.saga.deferred-max-sagas}")
+    private int deferredMaxSagas;
+
+    @Value(value = "${logging.saga.deferred-max-age-millis}")
+    private long deferredMaxAgeMillis;
+
+    public boolean isSampled(String orderId, ESagaStatus status) {
+
+        if (ESagaStatus.FAIL == status || ESagaStatus.ROLLBACK_PENDING == status || orderId == null)
+            return true;
+
+        return Math.floorMod(orderId.hashCode(), SAMPLE_BUCKETS) < this.sampleRate * SAMPLE_BUCKETS;
+    }
+
+    /**
+     * Writes the line now when the saga is sampled, after the lines deferred for it, otherwise defers it.
+     */
+    public void info(Logger logger, EventHeaders headers, String format, Object... arguments) {
+
+        if (this.isSampled(headers.getOrderId(), headers.getStatus())) {
+            this.flush(headers.getTransactionId());
+            logger.info(format, arguments);
+            return;
+        }
+
+        var transactionId = headers.getTransactionId();
+        if (transactionId == null || this.deferred.size() >= this.deferredMaxSagas && !this.deferred.containsKey(transactionId))
+            return;
+
+        var lines = this.deferred.computeIfAbsent(transactionId, id -> new DeferredSaga(System.nanoTime(), new ConcurrentLinkedQueue<>())).lines();
+        if (lines.size() < MAX_DEFERRED_LINES)
+            lines.add(new DeferredLine(logger, LocalDateTime.now(), format, snapshot(arguments)));
+    }
+
+    /**
+     * Writes what is still deferred for a saga finishing with errors, drops it otherwise.
+     */
+    public void finish(EventHeaders headers) {
+
+        if (ESagaStatus.FAIL == headers.getStatus())
+            this.flush(headers.getTransactionId());
+        else if (headers.getTransactionId() != null)
+            this.deferred.remove(headers.getTransactionId());
+    }
+
+    @Scheduled(fixedDelayString = "${logging.saga.deferred-max-age-millis}")
+    public void sweep() {
+
+        var oldest = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(this.deferredMaxAgeMillis);
+        this.deferred.values().removeIf(saga -> saga.deferredSince() - oldest < 0);
+    }
+
+    /**
+     * Wraps the payload so it is only rendered, and cut to the cap, when the line is written.
+     */
+    public Object payload(Object payload) {
+        return new TruncatedPayload(payload, this.payloadMaxLength);
+    }
+
+    private void flush(String transactionId) {
+
+        var saga = transactionId == null ? null : this.deferred.remove(transactionId);
+        if (saga == null)
+            return;
+
+        for (var line : saga.lines()) {
+            var arguments = Arrays.copyOf(line.arguments(), line.arguments().length + 1);
+            arguments[arguments.length - 1] = line.deferredAt();
+            line.logger().info(line.format() + " | DEFERRED FROM {}", arguments);
+        }
+    }
+
+    /**
+     * Headers are changed in place while the saga is routed, so the line keeps a copy as it was.
+     */
+    private static Object[] snapshot(Object[] arguments) {
+
+        var snapshot = arguments.clone();
+        for (var i = 0; i < snapshot.length; i++) {
+            if (snapshot[i] instanceof EventHeaders headers)
+                snapshot[i] = headers.toBuilder().build();
+        }
+        return snapshot;
+    }
+
+    private record DeferredSaga(long deferredSince, Queue<DeferredLine> lines) {
+    }
+
+    private record DeferredLine(Logger logger, LocalDateTime deferredAt, String format, Object[] arguments) {
+    }
+
+    private record TruncatedPayload(Object payload, int maxLength) {
+
+        @Override
+        public String toString() {
+
+            var text = String.valueOf(this.payload);
+            if (text.length() <= this.maxLength)
+                return text;
+
+            return text.substring(0, this.maxLength) + "... (" + text.length() + " chars)";
+        }
+    }
+}
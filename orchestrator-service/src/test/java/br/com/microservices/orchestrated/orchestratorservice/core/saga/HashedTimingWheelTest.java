@@ -0,0 +1,161 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.saga;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class HashedTimingWheelTest {
+
+    private final ExecutorService taskExecutor = Executors.newCachedThreadPool();
+    private HashedTimingWheel timingWheel;
+
+    @AfterEach
+    void stop() {
+
+        this.timingWheel.stop();
+        this.taskExecutor.shutdownNow();
+    }
+
+    @Test
+    void runsTimeoutOnTheTaskExecutorOnceItsDeadlineIsReached() throws InterruptedException {
+
+        this.timingWheel = new HashedTimingWheel("test-wheel", 5, TimeUnit.MILLISECONDS, 64, this.taskExecutor);
+        var expired = new CountDownLatch(1);
+        var thread = new ArrayList<String>();
+
+        var timeout = this.timingWheel.schedule(() -> {
+            thread.add(Thread.currentThread().getName());
+            expired.countDown();
+        }, 20, TimeUnit.MILLISECONDS);
+
+        assertThat(expired.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(timeout.isExpired()).isTrue();
+        assertThat(timeout.cancel()).isFalse();
+        assertThat(thread).singleElement().asString().doesNotStartWith("test-wheel");
+    }
+
+    @Test
+    void neverRunsCancelledTimeout() throws InterruptedException {
+
+        this.timingWheel = new HashedTimingWheel("test-wheel", 5, TimeUnit.MILLISECONDS, 64, this.taskExecutor);
+        var runs = new AtomicInteger();
+
+        var timeout = this.timingWheel.schedule(runs::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+
+        assertThat(timeout.cancel()).isTrue();
+        assertThat(timeout.cancel()).isFalse();
+        Thread.sleep(200);
+        assertThat(runs).hasValue(0);
+        assertThat(timeout.isExpired()).isFalse();
+    }
+
+    @Test
+    void expiresTimeoutsWhoseDelaySpansSeveralRounds() throws InterruptedException {
+
+        this.timingWheel = new HashedTimingWheel("test-wheel", 2, TimeUnit.MILLISECONDS, 4, this.taskExecutor);
+        var expired = new CountDownLatch(1);
+        var scheduledAt = System.nanoTime();
+
+        this.timingWheel.schedule(expired::countDown, 60, TimeUnit.MILLISECONDS);
+
+        assertThat(expired.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(System.nanoTime() - scheduledAt).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(60));
+    }
+
+    @Test
+    void slowTaskDoesNotDelayOtherExpiries() throws InterruptedException {
+
+        this.timingWheel = new HashedTimingWheel("test-wheel", 5, TimeUnit.MILLISECONDS, 64, this.taskExecutor);
+        var release = new CountDownLatch(1);
+        var fastExpired = new CountDownLatch(1);
+
+        this.timingWheel.schedule(() -> awaitQuietly(release), 10, TimeUnit.MILLISECONDS);
+        this.timingWheel.schedule(fastExpired::countDown, 30, TimeUnit.MILLISECONDS);
+
+        try {
+            assertThat(fastExpired.await(2, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void exactlyOneOfCancelAndExpiryWinsUnderContention() throws InterruptedException {
+
+        this.timingWheel = new HashedTimingWheel("test-wheel", 1, TimeUnit.MILLISECONDS, 64, this.taskExecutor);
+        var count = 5_000;
+        var runs = new AtomicIntegerArray(count);
+        var cancelled = new boolean[count];
+        var timeouts = new HashedTimingWheel.Timeout[count];
+
+        for (var i = 0; i < count; i++) {
+            var index = i;
+            timeouts[i] = this.timingWheel.schedule(() -> runs.incrementAndGet(index), ThreadLocalRandom.current().nextInt(5), TimeUnit.MILLISECONDS);
+        }
+
+        // Cancels race the worker: some land before the deadline, others right as it expires.
+        var cancellers = Executors.newFixedThreadPool(4);
+        var done = new CountDownLatch(count);
+        for (var i = 0; i < count; i++) {
+            var index = i;
+            cancellers.execute(() -> {
+                cancelled[index] = timeouts[index].cancel();
+                done.countDown();
+            });
+        }
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        cancellers.shutdown();
+
+        var expectedRuns = 0;
+        for (var i = 0; i < count; i++)
+            expectedRuns += cancelled[i] ? 0 : 1;
+
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (totalRuns(runs) < expectedRuns && System.nanoTime() < deadline)
+            Thread.sleep(10);
+        Thread.sleep(50);
+
+        for (var i = 0; i < count; i++) {
+            assertThat(runs.get(i)).as("runs of timeout %d", i).isEqualTo(cancelled[i] ? 0 : 1);
+            assertThat(timeouts[i].isExpired()).isEqualTo(!cancelled[i]);
+            assertThat(timeouts[i].isCancelled()).isEqualTo(cancelled[i]);
+        }
+    }
+
+    @Test
+    void rejectsInvalidWheel() {
+
+        this.timingWheel = new HashedTimingWheel("test-wheel", 5, TimeUnit.MILLISECONDS, 1, this.taskExecutor);
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new HashedTimingWheel("test-wheel", 0, TimeUnit.MILLISECONDS, 64, this.taskExecutor));
+    }
+
+    private static int totalRuns(AtomicIntegerArray runs) {
+
+        var total = 0;
+        for (var i = 0; i < runs.length(); i++)
+            total += runs.get(i);
+        return total;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.saga;
+
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource.INVENTORY_SERVICE;
+import static br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource.PAYMENT_SERVICE;
+import static br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource.PRODUCT_VALIDATION_SERVICE;
+import static br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus.FAIL;
+import static br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus.ROLLBACK_PENDING;
+import static br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus.SUCCESS;
+import static br.com.microservices.orchestrated.orchestratorservice.core.saga.SagaParallelJoin.Decision.COMPENSATE;
+import static br.com.microservices.orchestrated.orchestratorservice.core.saga.SagaParallelJoin.Decision.CONTINUE;
+import static br.com.microservices.orchestrated.orchestratorservice.core.saga.SagaParallelJoin.Decision.ROLLBACK_BRANCH;
+import static br.com.microservices.orchestrated.orchestratorservice.core.saga.SagaParallelJoin.Decision.WAIT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Timeouts reach the join like replies: an unanswered step as ROLLBACK_PENDING and an unconfirmed
+ * rollback as FAIL, both sourced from the branch that timed out.
+ */
+class SagaParallelJoinTest {
+
+    private static final SagaParallelGroup GROUP = new SagaTransitionTable().findParallelGroup(PRODUCT_VALIDATION_SERVICE);
+
+    private static final byte[] PAYMENT_SUCCEEDED = {1};
+    private static final byte[] PAYMENT_RETRIED = {2};
+    private static final byte[] PAYMENT_ROLLED_BACK = {3};
+    private static final byte[] INVENTORY_SUCCEEDED = {4};
+    private static final byte[] INVENTORY_ROLLED_BACK = {5};
+
+    private final SagaParallelJoin join = new SagaParallelJoin(GROUP);
+
+    @Test
+    void continuesWithTheOwnerPayloadFirstOnceAllBranchesSucceed() {
+
+        assertThat(this.join.onReply(PAYMENT_SERVICE, SUCCESS, PAYMENT_SUCCEEDED).decision()).isEqualTo(WAIT);
+
+        var outcome = this.join.onReply(INVENTORY_SERVICE, SUCCESS, INVENTORY_SUCCEEDED);
+
+        assertThat(outcome.decision()).isEqualTo(CONTINUE);
+        assertThat(outcome.payloads()).containsExactly(
+                entry(PAYMENT_SERVICE, PAYMENT_SUCCEEDED),
+                entry(INVENTORY_SERVICE, INVENTORY_SUCCEEDED));
+    }
+
+    @Test
+    void keepsTheOwnerFirstWhenItRepliesLast() {
+
+        assertThat(this.join.onReply(INVENTORY_SERVICE, SUCCESS, INVENTORY_SUCCEEDED).decision()).isEqualTo(WAIT);
+
+        var outcome = this.join.onReply(PAYMENT_SERVICE, SUCCESS, PAYMENT_SUCCEEDED);
+
+        assertThat(outcome.decision()).isEqualTo(CONTINUE);
+        assertThat(outcome.payloads().keySet()).containsExactly(PAYMENT_SERVICE, INVENTORY_SERVICE);
+    }
+
+    @Test
+    void ignoresDuplicateReplies() {
+
+        assertThat(this.join.onReply(PAYMENT_SERVICE, SUCCESS, PAYMENT_SUCCEEDED).decision()).isEqualTo(WAIT);
+        assertThat(this.join.onReply(PAYMENT_SERVICE, SUCCESS, PAYMENT_RETRIED).decision()).isEqualTo(WAIT);
+
+        var outcome = this.join.onReply(INVENTORY_SERVICE, SUCCESS, INVENTORY_SUCCEEDED);
+
+        assertThat(outcome.decision()).isEqualTo(CONTINUE);
+        assertThat(outcome.payloads().get(PAYMENT_SERVICE)).isSameAs(PAYMENT_SUCCEEDED);
+        assertThat(this.join.onReply(INVENTORY_SERVICE, SUCCESS, INVENTORY_SUCCEEDED).decision()).isEqualTo(WAIT);
+    }
+
+    @Test
+    void ignoresRepliesAfterTheJoinCompleted() {
+
+        this.join.onReply(PAYMENT_SERVICE, SUCCESS, PAYMENT_SUCCEEDED);
+        this.join.onReply(INVENTORY_SERVICE, SUCCESS, INVENTORY_SUCCEEDED);
+
+        assertThat(this.join.onReply(PAYMENT_SERVICE, ROLLBACK_PENDING, PAYMENT_RETRIED).decision()).isEqualTo(WAIT);
+        assertThat(this.join.onReply(INVENTORY_SERVICE, FAIL, INVENTORY_ROLLED_BACK).decision()).isEqualTo(WAIT);
+    }
+
+    @Test
+    void ignoresSourcesOutsideTheGroup() {
+
+        assertThat(this.join.onReply(PRODUCT_VALIDATION_SERVICE, SUCCESS, PAYMENT_SUCCEEDED).decision()).isEqualTo(WAIT);
+        assertThat(this.join.onReply(PRODUCT_VALIDATION_SERVICE, ROLLBACK_PENDING, PAYMENT_SUCCEEDED).decision()).isEqualTo(WAIT);
+    }
+
+    @Test
+    void ignoresRollbackConfirmationOfABranchThatWasNotRolledBack() {
+
+        assertThat(this.join.onReply(PAYMENT_SERVICE, FAIL, PAYMENT_ROLLED_BACK).decision()).isEqualTo(WAIT);
+        this.join.onReply(PAYMENT_SERVICE, SUCCESS, PAYMENT_SUCCEEDED);
+
+        assertThat(this.join.onReply(INVENTORY_SERVICE, SUCCESS, INVENTORY_SUCCEEDED).decision()).isEqualTo(CONTINUE);
+    }
+
+    @Test
+    void compensatesTheSucceededBranchOnceTheFailedOneIsRolledBack() {
+
+        assertThat(this.join.onReply(INVENTORY_SERVICE, ROLLBACK_PENDING, INVENTORY_SUCCEEDED).decision()).isEqualTo(ROLLBACK_BRANCH);
+        assertThat(this.join.onReply(PAYMENT_SERVICE, SUCCESS, PAYMENT_SUCCEEDED).decision()).isEqualTo(WAIT);
+
+        var compensate = this.join.onReply(INVENTORY_SERVICE, FAIL, INVENTORY_ROLLED_BACK);
+        assertThat(compensate.decision()).isEqualTo(COMPENSATE);
+        assertThat(compensate.payloads()).containsExactly(entry(PAYMENT_SERVICE, PAYMENT_SUCCEEDED));
+
+        // A success sent again by the compensating branch must not resume the saga.
+        assertThat(this.join.onReply(PAYMENT_SERVICE, SUCCESS, PAYMENT_RETRIED).decision()).isEqualTo(WAIT);
+
+        var fail = this.join.onReply(PAYMENT_SERVICE, FAIL, PAYMENT_ROLLED_BACK);
+        assertThat(fail.decision()).isEqualTo(SagaParallelJoin.Decision.FAIL);
+        assertThat(fail.payloads()).containsExactly(
+                entry(PAYMENT_SERVICE, PAYMENT_ROLLED_BACK),
+                entry(INVENTORY_SERVICE, INVENTORY_ROLLED_BACK));
+    }
+
+    @Test
+    void failsWithoutCompensationWhenEveryBranchFailed() {
+
+        assertThat(this.join.onReply(PAYMENT_SERVICE, ROLLBACK_PENDING, PAYMENT_SUCCEEDED).decision()).isEqualTo(ROLLBACK_BRANCH);
+        assertThat(this.join.onReply(INVENTORY_SERVICE, ROLLBACK_PENDING, INVENTORY_SUCCEEDED).decision()).isEqualTo(ROLLBACK_BRANCH);
+        assertThat(this.join.onReply(INVENTORY_SERVICE, FAIL, INVENTORY_ROLLED_BACK).decision()).isEqualTo(WAIT);
+        assertThat(this.join.onReply(PAYMENT_SERVICE, ROLLBACK_PENDING, PAYMENT_RETRIED).decision()).isEqualTo(WAIT);
+
+        var fail = this.join.onReply(PAYMENT_SERVICE, FAIL, PAYMENT_ROLLED_BACK);
+        assertThat(fail.decision()).isEqualTo(SagaParallelJoin.Decision.FAIL);
+        assertThat(fail.payloads().keySet()).containsExactly(PAYMENT_SERVICE, INVENTORY_SERVICE);
+    }
+
+    @Test
+    void branchTimeoutRollsItBackAndItsLateSuccessIsIgnored() {
+
+        this.join.onReply(PAYMENT_SERVICE, SUCCESS, PAYMENT_SUCCEEDED);
+
+        // Inventory did not answer in time.
+        assertThat(this.join.onReply(INVENTORY_SERVICE, ROLLBACK_PENDING, INVENTORY_SUCCEEDED).decision()).isEqualTo(ROLLBACK_BRANCH);
+        assertThat(this.join.onReply(INVENTORY_SERVICE, SUCCESS, INVENTORY_SUCCEEDED).decision()).isEqualTo(WAIT);
+
+        assertThat(this.join.onReply(INVENTORY_SERVICE, FAIL, INVENTORY_ROLLED_BACK).decision()).isEqualTo(COMPENSATE);
+    }
+
+    @Test
+    void compensationTimeoutStillFinishesTheJoin() {
+
+        this.join.onReply(INVENTORY_SERVICE, ROLLBACK_PENDING, INVENTORY_SUCCEEDED);
+        this.join.onReply(PAYMENT_SERVICE, SUCCESS, PAYMENT_SUCCEEDED);
+        assertThat(this.join.onReply(INVENTORY_SERVICE, FAIL, INVENTORY_ROLLED_BACK).decision()).isEqualTo(COMPENSATE);
+
+        // Payment did not confirm its rollback in time, the timeout reports it as FAIL with the last payload.
+        var fail = this.join.onReply(PAYMENT_SERVICE, FAIL, PAYMENT_SUCCEEDED);
+        assertThat(fail.decision()).isEqualTo(SagaParallelJoin.Decision.FAIL);
+
+        // The confirmation arriving afterwards changes nothing.
+        assertThat(this.join.onReply(PAYMENT_SERVICE, FAIL, PAYMENT_ROLLED_BACK).decision()).isEqualTo(WAIT);
+    }
+
+    @Test
+    void concurrentRepliesAndTimeoutsReachExactlyOneDecision() throws InterruptedException {
+
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            for (var round = 0; round < 500; round++) {
+
+                var join = new SagaParallelJoin(GROUP);
+                var decisions = Collections.synchronizedList(new ArrayList<SagaParallelJoin.Decision>());
+                var replies = List.<Runnable>of(
+                        () -> decisions.add(join.onReply(PAYMENT_SERVICE, SUCCESS, PAYMENT_SUCCEEDED).decision()),
+                        () -> decisions.add(join.onReply(PAYMENT_SERVICE, SUCCESS, PAYMENT_RETRIED).decision()),
+                        () -> decisions.add(join.onReply(INVENTORY_SERVICE, SUCCESS, INVENTORY_SUCCEEDED).decision()),
+                        () -> decisions.add(join.onReply(INVENTORY_SERVICE, ROLLBACK_PENDING, INVENTORY_SUCCEEDED).decision()));
+
+                var done = new CountDownLatch(replies.size());
+                replies.forEach(reply -> executor.execute(() -> {
+                    reply.run();
+                    done.countDown();
+                }));
+                assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+
+                // Inventory either succeeded first, so the saga continues, or timed out first and is rolled back.
+                assertThat(decisions).filteredOn(decision -> decision != WAIT).hasSize(1);
+                assertThat(decisions).containsAnyOf(CONTINUE, ROLLBACK_BRANCH);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Map.Entry<EEventSource, byte[]> entry(EEventSource source, byte[] payload) {
+        return Map.entry(source, payload);
+    }
+}
@@ -0,0 +1,213 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.saga;
+
+import br.com.microservices.orchestrated.orchestratorservice.core.dto.EventHeaders;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ETopic;
+import br.com.microservices.orchestrated.orchestratorservice.core.utils.SagaMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SagaRegistryTest {
+
+    private static final long STEP_TIMEOUT_MILLIS = 50;
+    private static final byte[] PAYLOAD = {1, 2, 3};
+
+    private final SagaTransitionTable sagaTransitionTable = new SagaTransitionTable();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SagaRegistry sagaRegistry = new SagaRegistry(this.sagaTransitionTable, new SagaMetrics(this.meterRegistry),
+            STEP_TIMEOUT_MILLIS, 5, 64, 2);
+    private final List<SagaRegistry.PendingStep> timedOut = new CopyOnWriteArrayList<>();
+    private final List<String> callbackThreads = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void stop() {
+
+        this.sagaRegistry.stop();
+    }
+
+    @Test
+    void replyBeforeDeadlineIsAcknowledgedAndCancelsTheTimeout() throws InterruptedException {
+
+        var headers = headers(EEventSource.PRODUCT_VALIDATION_SERVICE, ESagaStatus.SUCCESS);
+        this.sagaRegistry.register(headers);
+        this.sagaRegistry.await(headers, PAYLOAD, ETopic.PAYMENT_SUCCESS, this::onTimeout);
+
+        assertThat(this.sagaRegistry.acknowledge(reply(headers, EEventSource.PAYMENT_SERVICE, ESagaStatus.SUCCESS))).isTrue();
+        Thread.sleep(STEP_TIMEOUT_MILLIS * 4);
+        assertThat(this.timedOut).isEmpty();
+    }
+
+    @Test
+    void unansweredStepTimesOutOnTheCallbackPoolAndItsLateReplyIsDiscarded() throws InterruptedException {
+
+        var headers = headers(EEventSource.PRODUCT_VALIDATION_SERVICE, ESagaStatus.SUCCESS);
+        this.sagaRegistry.register(headers);
+        this.sagaRegistry.await(headers, PAYLOAD, ETopic.PAYMENT_SUCCESS, this::onTimeout);
+
+        this.awaitTimeouts(1);
+        var step = this.timedOut.get(0);
+        assertThat(step.getParticipant()).isEqualTo(EEventSource.PAYMENT_SERVICE);
+        assertThat(step.isCompensation()).isFalse();
+        assertThat(step.getPayload()).isSameAs(PAYLOAD);
+        assertThat(this.callbackThreads).singleElement().asString().startsWith("saga-timeout-callback-");
+
+        assertThat(this.sagaRegistry.acknowledge(reply(headers, EEventSource.PAYMENT_SERVICE, ESagaStatus.SUCCESS))).isFalse();
+    }
+
+    @Test
+    void compensationStepOnlyAcceptsTheRollbackReply() {
+
+        var headers = headers(EEventSource.PAYMENT_SERVICE, ESagaStatus.ROLLBACK_PENDING);
+        this.sagaRegistry.register(headers);
+        this.sagaRegistry.await(headers, PAYLOAD, ETopic.PAYMENT_FAIL, this::onTimeout);
+
+        assertThat(this.sagaRegistry.acknowledge(reply(headers, EEventSource.PAYMENT_SERVICE, ESagaStatus.SUCCESS))).isFalse();
+        assertThat(this.sagaRegistry.acknowledge(reply(headers, EEventSource.PAYMENT_SERVICE, ESagaStatus.FAIL))).isTrue();
+    }
+
+    @Test
+    void replyFromAnotherParticipantIsDiscarded() {
+
+        var headers = headers(EEventSource.PRODUCT_VALIDATION_SERVICE, ESagaStatus.SUCCESS);
+        this.sagaRegistry.register(headers);
+        this.sagaRegistry.await(headers, PAYLOAD, ETopic.PAYMENT_SUCCESS, this::onTimeout);
+
+        assertThat(this.sagaRegistry.acknowledge(reply(headers, EEventSource.INVENTORY_SERVICE, ESagaStatus.SUCCESS))).isFalse();
+    }
+
+    @Test
+    void topicsConsumedByTheOrchestratorAreNotTimed() throws InterruptedException {
+
+        var headers = headers(EEventSource.INVENTORY_SERVICE, ESagaStatus.SUCCESS);
+        this.sagaRegistry.register(headers);
+        this.sagaRegistry.await(headers, PAYLOAD, ETopic.FINISH_SUCCESS, this::onTimeout);
+
+        Thread.sleep(STEP_TIMEOUT_MILLIS * 4);
+        assertThat(this.timedOut).isEmpty();
+        assertThat(this.sagaRegistry.acknowledge(reply(headers, EEventSource.ORCHESTRATOR, ESagaStatus.SUCCESS))).isTrue();
+    }
+
+    @Test
+    void replyForAnUnknownSagaIsAccepted() {
+
+        var headers = headers(EEventSource.PAYMENT_SERVICE, ESagaStatus.SUCCESS);
+
+        assertThat(this.sagaRegistry.acknowledge(headers)).isTrue();
+    }
+
+    @Test
+    void finishCancelsPendingStepsAndCountsTheSaga() throws InterruptedException {
+
+        var headers = headers(EEventSource.PRODUCT_VALIDATION_SERVICE, ESagaStatus.SUCCESS);
+        this.sagaRegistry.register(headers);
+        this.sagaRegistry.await(headers, PAYLOAD, ETopic.PAYMENT_SUCCESS, this::onTimeout);
+
+        this.sagaRegistry.finish(reply(headers, EEventSource.ORCHESTRATOR, ESagaStatus.SUCCESS));
+
+        Thread.sleep(STEP_TIMEOUT_MILLIS * 4);
+        assertThat(this.timedOut).isEmpty();
+        assertThat(this.meterRegistry.get("saga.finished").tag("outcome", "SUCCESS").counter().count()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("saga.duration").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void resendingAStepReplacesItsDeadline() throws InterruptedException {
+
+        var headers = headers(EEventSource.PRODUCT_VALIDATION_SERVICE, ESagaStatus.SUCCESS);
+        this.sagaRegistry.register(headers);
+        this.sagaRegistry.await(headers, PAYLOAD, ETopic.PAYMENT_SUCCESS, this::onTimeout);
+        this.sagaRegistry.await(headers, PAYLOAD, ETopic.PAYMENT_SUCCESS, this::onTimeout);
+
+        assertThat(this.sagaRegistry.acknowledge(reply(headers, EEventSource.PAYMENT_SERVICE, ESagaStatus.SUCCESS))).isTrue();
+        Thread.sleep(STEP_TIMEOUT_MILLIS * 4);
+        assertThat(this.timedOut).isEmpty();
+    }
+
+    @Test
+    void branchesOfAParallelGroupAreTimedIndependently() throws InterruptedException {
+
+        var headers = headers(EEventSource.PRODUCT_VALIDATION_SERVICE, ESagaStatus.SUCCESS);
+        var group = this.sagaTransitionTable.findParallelGroup(EEventSource.PRODUCT_VALIDATION_SERVICE);
+        this.sagaRegistry.register(headers);
+        var join = this.sagaRegistry.startJoin(headers, group);
+        this.sagaRegistry.await(reply(headers, EEventSource.PAYMENT_SERVICE, ESagaStatus.SUCCESS), PAYLOAD, ETopic.PAYMENT_SUCCESS, this::onTimeout);
+        this.sagaRegistry.await(reply(headers, EEventSource.INVENTORY_SERVICE, ESagaStatus.SUCCESS), PAYLOAD, ETopic.INVENTORY_SUCCESS, this::onTimeout);
+
+        var paymentReply = reply(headers, EEventSource.PAYMENT_SERVICE, ESagaStatus.SUCCESS);
+        assertThat(this.sagaRegistry.acknowledge(paymentReply)).isTrue();
+        assertThat(this.sagaRegistry.findJoin(paymentReply)).isSameAs(join);
+        assertThat(this.sagaRegistry.findJoin(reply(headers, EEventSource.PRODUCT_VALIDATION_SERVICE, ESagaStatus.SUCCESS))).isNull();
+
+        this.awaitTimeouts(1);
+        assertThat(this.timedOut).singleElement().extracting(SagaRegistry.PendingStep::getParticipant).isEqualTo(EEventSource.INVENTORY_SERVICE);
+    }
+
+    @Test
+    void slowTimeoutCallbackDoesNotDelayOtherSagas() throws InterruptedException {
+
+        var release = new CountDownLatch(1);
+        var secondTimedOut = new CountDownLatch(1);
+        var first = headers(EEventSource.PRODUCT_VALIDATION_SERVICE, ESagaStatus.SUCCESS);
+        var second = headers(EEventSource.PRODUCT_VALIDATION_SERVICE, ESagaStatus.SUCCESS);
+
+        this.sagaRegistry.await(first, PAYLOAD, ETopic.PAYMENT_SUCCESS, step -> awaitQuietly(release));
+        this.sagaRegistry.await(second, PAYLOAD, ETopic.PAYMENT_SUCCESS, step -> secondTimedOut.countDown());
+
+        try {
+            assertThat(secondTimedOut.await(2, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private void onTimeout(SagaRegistry.PendingStep step) {
+
+        this.callbackThreads.add(Thread.currentThread().getName());
+        this.timedOut.add(step);
+    }
+
+    private void awaitTimeouts(int count) throws InterruptedException {
+
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (this.timedOut.size() < count && System.nanoTime() < deadline)
+            Thread.sleep(5);
+        Thread.sleep(STEP_TIMEOUT_MILLIS);
+        assertThat(this.timedOut).hasSize(count);
+    }
+
+    private static EventHeaders headers(EEventSource source, ESagaStatus status) {
+
+        return EventHeaders
+                .builder()
+                .eventId(UUID.randomUUID().toString())
+                .orderId(UUID.randomUUID().toString())
+                .transactionId(UUID.randomUUID().toString())
+                .source(source)
+                .status(status)
+                .build();
+    }
+
+    private static EventHeaders reply(EventHeaders headers, EEventSource source, ESagaStatus status) {
+
+        return headers.toBuilder().source(source).status(status).build();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.service;
+
+import br.com.microservices.orchestrated.orchestratorservice.core.dto.Event;
+import br.com.microservices.orchestrated.orchestratorservice.core.dto.EventHeaders;
+import br.com.microservices.orchestrated.orchestratorservice.core.dto.History;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventFormat;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EHistoryMode;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ETopic;
+import br.com.microservices.orchestrated.orchestratorservice.core.producer.SagaOrchestratorProducer;
+import br.com.microservices.orchestrated.orchestratorservice.core.saga.SagaExecutionController;
+import br.com.microservices.orchestrated.orchestratorservice.core.saga.SagaRegistry;
+import br.com.microservices.orchestrated.orchestratorservice.core.saga.SagaTransitionTable;
+import br.com.microservices.orchestrated.orchestratorservice.core.utils.EventCodec;
+import br.com.microservices.orchestrated.orchestratorservice.core.utils.JsonUtil;
+import br.com.microservices.orchestrated.orchestratorservice.core.utils.SagaLog;
+import br.com.microservices.orchestrated.orchestratorservice.core.utils.SagaMetrics;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource.INVENTORY_SERVICE;
+import static br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource.ORCHESTRATOR;
+import static br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource.PAYMENT_SERVICE;
+import static br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource.PRODUCT_VALIDATION_SERVICE;
+import static br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus.FAIL;
+import static br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus.ROLLBACK_PENDING;
+import static br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus.SUCCESS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs sagas through the parallel group of {@link SagaTransitionTable} with the real registry and
+ * join, capturing what would be sent to Kafka.
+ */
+class OrchestratorServiceTest {
+
+    private static final long STEP_TIMEOUT_MILLIS = 300;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final EventCodec eventCodec = new EventCodec(this.objectMapper, EEventFormat.BINARY);
+    private final SagaTransitionTable sagaTransitionTable = new SagaTransitionTable();
+    private final SagaRegistry sagaRegistry = new SagaRegistry(this.sagaTransitionTable, new SagaMetrics(new SimpleMeterRegistry()),
+            STEP_TIMEOUT_MILLIS, 5, 64, 2);
+    private final List<Sent> sent = new CopyOnWriteArrayList<>();
+    private final String orderId = UUID.randomUUID().toString();
+    private final String transactionId = UUID.randomUUID().toString();
+
+    private OrchestratorService orchestratorService;
+
+    @BeforeEach
+    void setUp() {
+
+        var sagaLog = new SagaLog();
+        var sagaExecutionController = new SagaExecutionController(this.sagaTransitionTable, sagaLog);
+        ReflectionTestUtils.setField(sagaExecutionController, "parallelEnabled", true);
+
+        var producer = mock(SagaOrchestratorProducer.class);
+        doAnswer(invocation -> {
+            EventHeaders headers = invocation.getArgument(2);
+            this.sent.add(new Sent(ETopic.valueOf(topicName(invocation.getArgument(1))), headers.getSource(), headers.getStatus(), invocation.getArgument(0)));
+            return null;
+        }).when(producer).sendEvent(any(), anyString(), any());
+
+        this.orchestratorService = new OrchestratorService(new JsonUtil(this.objectMapper), this.eventCodec, producer,
+                sagaExecutionController, this.sagaRegistry, sagaLog);
+        ReflectionTestUtils.setField(this.orchestratorService, "historyMode", EHistoryMode.FULL);
+
+        this.orchestratorService.startSaga(this.headers(ORCHESTRATOR, SUCCESS), this.payload(List.of()));
+        this.reply(PRODUCT_VALIDATION_SERVICE, SUCCESS);
+    }
+
+    @AfterEach
+    void stop() {
+
+        this.sagaRegistry.stop();
+    }
+
+    @Test
+    void forksToEveryBranchAfterProductValidation() {
+
+        assertThat(this.sent).extracting(Sent::topic).containsExactly(
+                ETopic.PRODUCT_VALIDATION_SUCCESS, ETopic.PAYMENT_SUCCESS, ETopic.INVENTORY_SUCCESS);
+    }
+
+    @Test
+    void joinsOutOfOrderRepliesOnceWithTheMergedHistory() {
+
+        this.reply(INVENTORY_SERVICE, SUCCESS);
+        assertThat(this.sentTo(ETopic.FINISH_SUCCESS)).isEmpty();
+
+        this.reply(PAYMENT_SERVICE, SUCCESS);
+
+        assertThat(this.sentTo(ETopic.FINISH_SUCCESS)).singleElement().satisfies(joined -> {
+            assertThat(joined.source()).isEqualTo(PAYMENT_SERVICE);
+            assertThat(joined.status()).isEqualTo(SUCCESS);
+
+            var event = this.eventCodec.decode(joined.payload());
+            assertThat(event.getSource()).isEqualTo(PAYMENT_SERVICE);
+            assertThat(event.getEventHistory())
+                    .extracting(History::getSequence, History::getSource)
+                    .containsExactly(
+                            tuple(1, ORCHESTRATOR),
+                            tuple(2, PRODUCT_VALIDATION_SERVICE),
+                            tuple(3, PAYMENT_SERVICE),
+                            tuple(3, INVENTORY_SERVICE));
+        });
+    }
+
+    @Test
+    void discardsDuplicateBranchReplies() {
+
+        this.reply(PAYMENT_SERVICE, SUCCESS);
+        this.reply(PAYMENT_SERVICE, SUCCESS);
+        this.reply(INVENTORY_SERVICE, SUCCESS);
+        this.reply(INVENTORY_SERVICE, SUCCESS);
+
+        assertThat(this.sentTo(ETopic.FINISH_SUCCESS)).hasSize(1);
+        assertThat(this.sent).hasSize(4);
+    }
+
+    @Test
+    void compensatesTheSucceededBranchWhenTheOtherFails() {
+
+        this.reply(PAYMENT_SERVICE, SUCCESS);
+        this.reply(INVENTORY_SERVICE, ROLLBACK_PENDING);
+        assertThat(this.sentTo(ETopic.INVENTORY_FAIL)).hasSize(1);
+
+        this.reply(INVENTORY_SERVICE, FAIL);
+        assertThat(this.sentTo(ETopic.PAYMENT_FAIL)).singleElement().satisfies(compensation -> {
+            assertThat(compensation.source()).isEqualTo(PAYMENT_SERVICE);
+            assertThat(compensation.status()).isEqualTo(ROLLBACK_PENDING);
+        });
+
+        this.reply(PAYMENT_SERVICE, FAIL);
+        assertThat(this.sentTo(ETopic.PRODUCT_VALIDATION_FAIL)).singleElement().satisfies(failed -> {
+            assertThat(failed.source()).isEqualTo(PAYMENT_SERVICE);
+            assertThat(failed.status()).isEqualTo(FAIL);
+        });
+        assertThat(this.sentTo(ETopic.FINISH_SUCCESS)).isEmpty();
+    }
+
+    @Test
+    void rollsBackABranchThatTimesOutDuringTheJoinAndDiscardsItsLateSuccess() throws InterruptedException {
+
+        this.reply(PAYMENT_SERVICE, SUCCESS);
+
+        var rollback = this.awaitSent(ETopic.INVENTORY_FAIL);
+        assertThat(rollback.source()).isEqualTo(INVENTORY_SERVICE);
+        assertThat(rollback.status()).isEqualTo(ROLLBACK_PENDING);
+        assertThat(this.eventCodec.decode(rollback.payload()).getEventHistory())
+                .extracting(History::getMessage).last().isEqualTo("Saga step timed out!");
+
+        this.reply(INVENTORY_SERVICE, SUCCESS);
+        assertThat(this.sentTo(ETopic.FINISH_SUCCESS)).isEmpty();
+
+        this.reply(INVENTORY_SERVICE, FAIL);
+        assertThat(this.sentTo(ETopic.PAYMENT_FAIL)).hasSize(1);
+
+        this.reply(PAYMENT_SERVICE, FAIL);
+        assertThat(this.sentTo(ETopic.PRODUCT_VALIDATION_FAIL)).hasSize(1);
+        assertThat(this.sentTo(ETopic.FINISH_SUCCESS)).isEmpty();
+    }
+
+    @Test
+    void finishesTheJoinWhenACompensationTimesOut() throws InterruptedException {
+
+        this.reply(PAYMENT_SERVICE, SUCCESS);
+        this.reply(INVENTORY_SERVICE, ROLLBACK_PENDING);
+        this.reply(INVENTORY_SERVICE, FAIL);
+        assertThat(this.sentTo(ETopic.PAYMENT_FAIL)).hasSize(1);
+
+        var failed = this.awaitSent(ETopic.PRODUCT_VALIDATION_FAIL);
+        assertThat(failed.status()).isEqualTo(FAIL);
+
+        // The confirmation arriving after the timeout is discarded.
+        this.reply(PAYMENT_SERVICE, FAIL);
+        Thread.sleep(STEP_TIMEOUT_MILLIS);
+        assertThat(this.sentTo(ETopic.PRODUCT_VALIDATION_FAIL)).hasSize(1);
+    }
+
+    private void reply(EEventSource source, ESagaStatus status) {
+
+        var history = new ArrayList<History>();
+        history.add(new History(ORCHESTRATOR, SUCCESS, "Saga started!", LocalDateTime.now(), 1));
+        if (PRODUCT_VALIDATION_SERVICE != source)
+            history.add(new History(PRODUCT_VALIDATION_SERVICE, SUCCESS, "Products validated!", LocalDateTime.now(), 2));
+        history.add(new History(source, status, "Replied " + status, LocalDateTime.now(), history.size() + 1));
+
+        this.orchestratorService.continueSaga(this.headers(source, status), this.payload(history));
+    }
+
+    private EventHeaders headers(EEventSource source, ESagaStatus status) {
+
+        return EventHeaders
+                .builder()
+                .eventId(UUID.randomUUID().toString())
+                .orderId(this.orderId)
+                .transactionId(this.transactionId)
+                .source(source)
+                .status(status)
+                .build();
+    }
+
+    private byte[] payload(List<History> history) {
+
+        var last = history.isEmpty() ? null : history.get(history.size() - 1);
+        return this.eventCodec.encode(Event
+                .builder()
+                .id(UUID.randomUUID().toString())
+                .orderId(this.orderId)
+                .transactionId(this.transactionId)
+                .source(last == null ? ORCHESTRATOR : last.getSource())
+                .status(last == null ? SUCCESS : last.getStatus())
+                .eventHistory(history)
+                .historySequence(history.size())
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    private List<Sent> sentTo(ETopic topic) {
+
+        return this.sent.stream().filter(sent -> sent.topic() == topic).toList();
+    }
+
+    private Sent awaitSent(ETopic topic) throws InterruptedException {
+
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (this.sentTo(topic).isEmpty() && System.nanoTime() < deadline)
+            Thread.sleep(10);
+
+        assertThat(this.sentTo(topic)).hasSize(1);
+        return this.sentTo(topic).get(0);
+    }
+
+    private static String topicName(String topic) {
+
+        for (var value : ETopic.values()) {
+            if (value.getTopic().equals(topic))
+                return value.name();
+        }
+        throw new IllegalArgumentException(topic);
+    }
+
+    private record Sent(ETopic topic, EEventSource source, ESagaStatus status, byte[] payload) {
+
+    }
+}
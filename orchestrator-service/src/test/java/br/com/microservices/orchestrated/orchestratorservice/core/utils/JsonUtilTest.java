@@ -0,0 +1,177 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.utils;
+
+import br.com.microservices.orchestrated.orchestratorservice.core.dto.Event;
+import br.com.microservices.orchestrated.orchestratorservice.core.dto.History;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class JsonUtilTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+
+    private final ObjectMapper objectMapper = objectMapper();
+    private final JsonUtil jsonUtil = new JsonUtil(this.objectMapper);
+
+    @Test
+    void splicesIntoEmptyHistory() {
+
+        var json = """
+                {"id":"e1","source":"ORCHESTRATOR","status":"SUCCESS","eventHistory":[ ],"historySequence":0}""";
+
+        var event = this.splice(json, EEventSource.PAYMENT_SERVICE, ESagaStatus.ROLLBACK_PENDING, "Saga step timed out!");
+
+        assertThat(event.getSource()).isEqualTo(EEventSource.PAYMENT_SERVICE);
+        assertThat(event.getStatus()).isEqualTo(ESagaStatus.ROLLBACK_PENDING);
+        assertThat(event.getHistorySequence()).isEqualTo(1);
+        assertThat(event.getEventHistory()).singleElement().satisfies(history -> {
+            assertThat(history.getSequence()).isEqualTo(1);
+            assertThat(history.getSource()).isEqualTo(EEventSource.PAYMENT_SERVICE);
+            assertThat(history.getMessage()).isEqualTo("Saga step timed out!");
+            assertThat(history.getCreatedAt()).isEqualTo(NOW);
+        });
+    }
+
+    @Test
+    void appendsToNonEmptyHistoryAndCopiesOtherBytesAsIs() {
+
+        var payload = "{ \"id\" : \"o1\" , \"totalAmount\" : 10.50 }";
+        var json = """
+                {
+                  "id": "e1",
+                  "payload": %s,
+                  "source": "PRODUCT_VALIDATION_SERVICE",
+                  "status": "SUCCESS",
+                  "eventHistory": [
+                    {"source":"ORCHESTRATOR","status":"SUCCESS","message":"Saga started!","sequence":1},
+                    {"source":"PRODUCT_VALIDATION_SERVICE","status":"SUCCESS","message":"Products validated!","sequence":2}
+                  ],
+                  "historySequence": 2
+                }""".formatted(payload);
+
+        var spliced = this.jsonUtil.splice(json.getBytes(UTF_8), EEventSource.ORCHESTRATOR, ESagaStatus.SUCCESS, history("Moving on!"));
+        var event = this.jsonUtil.toEvent(spliced);
+
+        assertThat(new String(spliced, UTF_8)).contains("\"payload\": " + payload);
+        assertThat(event.getHistorySequence()).isEqualTo(3);
+        assertThat(event.getEventHistory())
+                .extracting(History::getSequence, History::getMessage)
+                .containsExactly(
+                        tuple(1, "Saga started!"),
+                        tuple(2, "Products validated!"),
+                        tuple(3, "Moving on!"));
+    }
+
+    @Test
+    void replacesNullHistoryWithANewArray() {
+
+        var json = """
+                {"id":"e1","source":"ORCHESTRATOR","status":"SUCCESS","eventHistory":null,"historySequence":4}""";
+
+        var event = this.splice(json, EEventSource.INVENTORY_SERVICE, ESagaStatus.FAIL, "Rolled back!");
+
+        assertThat(event.getHistorySequence()).isEqualTo(5);
+        assertThat(event.getEventHistory()).singleElement().extracting(History::getSequence).isEqualTo(5);
+    }
+
+    @Test
+    void addsMissingFields() {
+
+        var event = this.splice("{\"id\":\"e1\"}", EEventSource.ORCHESTRATOR, ESagaStatus.SUCCESS, "Saga started!");
+
+        assertThat(event.getId()).isEqualTo("e1");
+        assertThat(event.getSource()).isEqualTo(EEventSource.ORCHESTRATOR);
+        assertThat(event.getStatus()).isEqualTo(ESagaStatus.SUCCESS);
+        assertThat(event.getHistorySequence()).isEqualTo(1);
+        assertThat(event.getEventHistory()).singleElement().extracting(History::getSequence).isEqualTo(1);
+    }
+
+    @Test
+    void addsAllFieldsToAnEmptyObject() {
+
+        var event = this.splice(" { } ", EEventSource.ORCHESTRATOR, ESagaStatus.SUCCESS, "Saga started!");
+
+        assertThat(event.getSource()).isEqualTo(EEventSource.ORCHESTRATOR);
+        assertThat(event.getEventHistory()).hasSize(1);
+    }
+
+    @Test
+    void keepsEscapedAndMultiByteStringsIntact() {
+
+        // Escapes and multi-byte characters make byte offsets differ from character offsets.
+        var json = """
+                {"orderId":"a\\"b\\\\c \\u00e9 ação 😀","payload":{"source":"ORCHESTRATOR","id":"\\"source\\": x"},\
+                "source":"ORCHESTRATOR","status":"SUCCESS","eventHistory":[{"message":"say \\"hi\\"","sequence":1}],"historySequence":1}""";
+
+        var event = this.splice(json, EEventSource.PAYMENT_SERVICE, ESagaStatus.SUCCESS, "Quote \" and\nnew line ü");
+
+        assertThat(event.getOrderId()).isEqualTo("a\"b\\c é ação 😀");
+        assertThat(event.getPayload().getId()).isEqualTo("\"source\": x");
+        assertThat(event.getSource()).isEqualTo(EEventSource.PAYMENT_SERVICE);
+        assertThat(event.getEventHistory())
+                .extracting(History::getMessage)
+                .containsExactly("say \"hi\"", "Quote \" and\nnew line ü");
+    }
+
+    @Test
+    void fallsBackToBindingWhenTheEventCannotBeSpliced() {
+
+        // Only binding unwraps a single element array, so the streaming splice fails and the fallback runs.
+        var jsonUtil = new JsonUtil(objectMapper().enable(DeserializationFeature.UNWRAP_SINGLE_VALUE_ARRAYS));
+        var json = """
+                [{"id":"e1","source":"ORCHESTRATOR","status":"SUCCESS","eventHistory":[{"sequence":1}],"historySequence":1}]""";
+
+        var event = jsonUtil.toEvent(jsonUtil.splice(json.getBytes(UTF_8), EEventSource.PAYMENT_SERVICE, ESagaStatus.FAIL, history("Bound!")));
+
+        assertThat(event.getSource()).isEqualTo(EEventSource.PAYMENT_SERVICE);
+        assertThat(event.getStatus()).isEqualTo(ESagaStatus.FAIL);
+        assertThat(event.getHistorySequence()).isEqualTo(2);
+        assertThat(event.getEventHistory()).extracting(History::getSequence).containsExactly(1, 2);
+    }
+
+    @Test
+    void returnsUnreadableEventUntouched() {
+
+        var json = "{\"id\":\"e1\",\"source\":".getBytes(UTF_8);
+
+        assertThat(this.jsonUtil.splice(json, EEventSource.PAYMENT_SERVICE, ESagaStatus.SUCCESS, history("Lost!"))).isSameAs(json);
+    }
+
+    private Event splice(String json, EEventSource source, ESagaStatus status, String message) {
+
+        return this.jsonUtil.toEvent(this.jsonUtil.splice(json.getBytes(UTF_8), source, status, history(message, source, status)));
+    }
+
+    private static History history(String message) {
+
+        return history(message, EEventSource.ORCHESTRATOR, ESagaStatus.SUCCESS);
+    }
+
+    private static History history(String message, EEventSource source, ESagaStatus status) {
+
+        return History
+                .builder()
+                .source(source)
+                .status(status)
+                .message(message)
+                .createdAt(NOW)
+                .build();
+    }
+
+    private static ObjectMapper objectMapper() {
+
+        return new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+}
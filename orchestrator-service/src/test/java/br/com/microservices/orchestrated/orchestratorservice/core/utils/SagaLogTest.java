@@ -0,0 +1,137 @@
+package br.com.microservices.orchestrated.orchestratorservice.core.utils;
+
+import br.com.microservices.orchestrated.orchestratorservice.core.dto.EventHeaders;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.EEventSource;
+import br.com.microservices.orchestrated.orchestratorservice.core.enums.ESagaStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.slf4j.Logger;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SagaLogTest {
+
+    private final Logger logger = mock(Logger.class);
+    private final SagaLog sagaLog = new SagaLog();
+
+    @BeforeEach
+    void setUp() {
+
+        ReflectionTestUtils.setField(this.sagaLog, "sampleRate", 0.0);
+        ReflectionTestUtils.setField(this.sagaLog, "deferredMaxSagas", 2);
+        ReflectionTestUtils.setField(this.sagaLog, "deferredMaxAgeMillis", 60_000L);
+    }
+
+    @Test
+    void writesTheDeferredHopsOfASagaOnceItFails() {
+
+        var headers = headers(ESagaStatus.SUCCESS);
+        var started = headers.toBuilder().build();
+        this.sagaLog.info(this.logger, headers, "started {}", headers);
+        headers.setSource(EEventSource.PAYMENT_SERVICE);
+        this.sagaLog.info(this.logger, headers, "continued {}", headers);
+        verifyNoInteractions(this.logger);
+
+        headers.setStatus(ESagaStatus.ROLLBACK_PENDING);
+        this.sagaLog.info(this.logger, headers, "compensating {}", headers);
+
+        var arguments = ArgumentCaptor.forClass(Object[].class);
+        InOrder inOrder = inOrder(this.logger);
+        inOrder.verify(this.logger).info(eq("started {} | DEFERRED FROM {}"), arguments.capture());
+        inOrder.verify(this.logger).info(eq("continued {} | DEFERRED FROM {}"), any(Object[].class));
+        inOrder.verify(this.logger).info("compensating {}", new Object[]{headers});
+
+        // The line shows the headers as they were when it was deferred.
+        assertThat(arguments.getValue()[0]).isEqualTo(started);
+        assertThat(arguments.getValue()[1]).isInstanceOf(LocalDateTime.class);
+    }
+
+    @Test
+    void dropsTheDeferredHopsOfASagaThatSucceeds() {
+
+        var headers = headers(ESagaStatus.SUCCESS);
+        this.sagaLog.info(this.logger, headers, "started {}", headers);
+        this.sagaLog.finish(headers);
+
+        headers.setStatus(ESagaStatus.FAIL);
+        this.sagaLog.info(this.logger, headers, "failed {}", headers);
+
+        verify(this.logger).info("failed {}", new Object[]{headers});
+        verifyNoMoreInteractions(this.logger);
+    }
+
+    @Test
+    void writesWhatIsStillDeferredWhenTheSagaFinishesWithErrors() {
+
+        var headers = headers(ESagaStatus.SUCCESS);
+        this.sagaLog.info(this.logger, headers, "late reply {}", headers);
+        headers.setStatus(ESagaStatus.FAIL);
+        this.sagaLog.finish(headers);
+
+        verify(this.logger).info(eq("late reply {} | DEFERRED FROM {}"), any(Object[].class));
+    }
+
+    @Test
+    void logsSampledSagasRightAway() {
+
+        ReflectionTestUtils.setField(this.sagaLog, "sampleRate", 1.0);
+        var headers = headers(ESagaStatus.SUCCESS);
+
+        this.sagaLog.info(this.logger, headers, "started {}", headers);
+
+        verify(this.logger).info("started {}", new Object[]{headers});
+    }
+
+    @Test
+    void defersNoMoreThanTheMaxSagas() {
+
+        var first = headers(ESagaStatus.SUCCESS);
+        var second = headers(ESagaStatus.SUCCESS);
+        var third = headers(ESagaStatus.SUCCESS);
+        for (var headers : new EventHeaders[]{first, second, third})
+            this.sagaLog.info(this.logger, headers, "started {}", headers);
+
+        third.setStatus(ESagaStatus.FAIL);
+        this.sagaLog.finish(third);
+        verifyNoInteractions(this.logger);
+
+        first.setStatus(ESagaStatus.FAIL);
+        this.sagaLog.finish(first);
+        verify(this.logger).info(eq("started {} | DEFERRED FROM {}"), any(Object[].class));
+    }
+
+    @Test
+    void sweepsSagasDeferredForTooLong() {
+
+        var headers = headers(ESagaStatus.SUCCESS);
+        this.sagaLog.info(this.logger, headers, "started {}", headers);
+
+        ReflectionTestUtils.setField(this.sagaLog, "deferredMaxAgeMillis", 0L);
+        this.sagaLog.sweep();
+
+        headers.setStatus(ESagaStatus.FAIL);
+        this.sagaLog.finish(headers);
+        verifyNoInteractions(this.logger);
+    }
+
+    private static EventHeaders headers(ESagaStatus status) {
+
+        return EventHeaders
+                .builder()
+                .eventId(UUID.randomUUID().toString())
+                .orderId(UUID.randomUUID().toString())
+                .transactionId(UUID.randomUUID().toString())
+                .source(EEventSource.ORCHESTRATOR)
+                .status(status)
+                .build();
+    }
+}
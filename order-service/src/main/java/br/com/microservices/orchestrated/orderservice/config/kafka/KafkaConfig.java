@@ -1,29 +1,46 @@
 package br.com.microservices.orchestrated.orderservice.config.kafka;
 
+import br.com.microservices.orchestrated.orderservice.core.document.Event;
+import br.com.microservices.orchestrated.orderservice.core.enums.EProducerProfile;
+import br.com.microservices.orchestrated.orderservice.core.utils.EventCodec;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.retrytopic.DeadLetterPublishingRecovererFactory;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationSupport;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @EnableKafka
 @Configuration
 @RequiredArgsConstructor
-public class KafkaConfig {
+public class KafkaConfig extends RetryTopicConfigurationSupport {
 
-    private static final Integer PARTITION_COUNT = 1;
     private static final Integer REPLICA_COUNT = 1;
 
+    private final EventCodec eventCodec;
+    private final MeterRegistry meterRegistry;
+
     @Value(value = "${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
@@ -33,6 +50,30 @@ public class KafkaConfig {
     @Value(value = "${spring.kafka.consumer.auto-offset-reset}")
     private String autoOffsetReset;
 
+    @Value(value = "${spring.kafka.producer-profile}")
+    private EProducerProfile producerProfile;
+
+    @Value(value = "${spring.kafka.partitions}")
+    private Integer partitionCount;
+
+    @Value(value = "${spring.kafka.listener.concurrency}")
+    private Integer listenerConcurrency;
+
+    @Value(value = "${spring.threads.virtual.enabled}")
+    private boolean virtualThreads;
+
+    @Value(value = "${spring.kafka.retry.attempts}")
+    private Integer retryAttempts;
+
+    @Value(value = "${spring.kafka.retry.initial-interval-millis}")
+    private Long retryInitialIntervalMillis;
+
+    @Value(value = "${spring.kafka.retry.multiplier}")
+    private Double retryMultiplier;
+
+    @Value(value = "${spring.kafka.retry.max-interval-millis}")
+    private Long retryMaxIntervalMillis;
+
     @Value(value = "${spring.kafka.topic.start-saga}")
     private String startSagaTopic;
 
@@ -40,9 +81,13 @@ public class KafkaConfig {
     private String notifyEndingTopic;
 
     @Bean
-    public ConsumerFactory<String, String> consumerFactory() {
+    public ConsumerFactory<String, Event> consumerFactory() {
 
-        return new DefaultKafkaConsumerFactory<>(this.consumerProps());
+        return new DefaultKafkaConsumerFactory<>(
+                this.consumerProps(),
+                new ErrorHandlingDeserializer<>(new StringDeserializer()),
+                new ErrorHandlingDeserializer<>(new EventDeserializer(this.eventCodec))
+        );
     }
 
     private Map<String, Object> consumerProps() {
@@ -51,15 +96,65 @@ public class KafkaConfig {
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, this.bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, this.groupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, this.autoOffsetReset);
         return props;
     }
 
     @Bean
-    public ProducerFactory<String, String> producerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, Event> kafkaListenerContainerFactory() {
+
+        var factory = new ConcurrentKafkaListenerContainerFactory<String, Event>();
+        factory.setConsumerFactory(this.consumerFactory());
+        factory.setConcurrency(this.listenerConcurrency);
+        factory.getContainerProperties().setObservationEnabled(true);
+        if (this.virtualThreads)
+            factory.getContainerProperties().setListenerTaskExecutor(this.virtualThreadExecutor());
+        return factory;
+    }
+
+    /**
+     * In virtual thread mode each consumer of a container polls and runs its listener on a virtual
+     * thread instead of a platform one. Records are still handled one at a time per consumer, in offset
+     * order, as the history parts of an order must be applied in sequence, so the listener concurrency
+     * stays the bound on MongoDB calls.
+     */
+    private AsyncTaskExecutor virtualThreadExecutor() {
+        return new SimpleAsyncTaskExecutor(Thread.ofVirtual().name(this.groupId + "-", 0).factory());
+    }
+
+    /**
+     * Failed records move through retry topics with an exponential delay and end in the dead letter
+     * topic of the listener's topic, so they never hold back the main partition. Records that cannot be
+     * decoded go straight to the dead letter topic.
+     */
+    @Bean
+    public RetryTopicConfiguration retryTopicConfiguration() {
+
+        return RetryTopicConfigurationBuilder
+                .newInstance()
+                .maxAttempts(this.retryAttempts)
+                .exponentialBackoff(this.retryInitialIntervalMillis, this.retryMultiplier, this.retryMaxIntervalMillis)
+                .retryTopicSuffix(DeadLetterRecoverer.RETRY_SUFFIX)
+                .dltSuffix(DeadLetterRecoverer.DLT_SUFFIX)
+                .suffixTopicsWithIndexValues()
+                .doNotRetryOnDltFailure()
+                .autoCreateTopicsWith(this.partitionCount, REPLICA_COUNT.shortValue())
+                .create(this.retryKafkaTemplate());
+    }
+
+    @Override
+    protected Consumer<DeadLetterPublishingRecovererFactory> configureDeadLetterPublishingContainerFactory() {
 
-        return new DefaultKafkaProducerFactory<>(this.producerProps());
+        return factory -> factory.setDeadLetterPublisherCreator((templateResolver, destinationResolver) ->
+                new DeadLetterRecoverer(templateResolver, destinationResolver, this.meterRegistry));
+    }
+
+    @Bean
+    public ProducerFactory<String, byte[]> producerFactory() {
+
+        var factory = new DefaultKafkaProducerFactory<>(this.producerProps(), new StringSerializer(), new ByteArraySerializer());
+        factory.addListener(new MicrometerProducerListener<>(this.meterRegistry));
+        return factory;
     }
 
     private Map<String, Object> producerProps() {
@@ -67,21 +162,44 @@ public class KafkaConfig {
         var props = new HashMap<String, Object>();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, this.bootstrapServers);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        this.producerProfile.applyTo(props);
         return props;
     }
 
     @Bean
-    public KafkaTemplate<String, String> kafkaTemplate() {
+    public KafkaTemplate<String, byte[]> kafkaTemplate() {
+
+        var template = new KafkaTemplate<>(producerFactory());
+        template.setObservationEnabled(true);
+        return template;
+    }
+
+    /**
+     * Republishes consumed records, which are decoded events or, when decoding failed, the raw bytes.
+     */
+    @Bean
+    public ProducerFactory<String, Object> retryProducerFactory() {
+
+        var valueSerializer = new DelegatingByTypeSerializer(Map.of(
+                byte[].class, new ByteArraySerializer(),
+                Event.class, new EventSerializer(this.eventCodec)
+        ));
+        return new DefaultKafkaProducerFactory<>(this.producerProps(), new StringSerializer(), valueSerializer);
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> retryKafkaTemplate() {
 
-        return new KafkaTemplate<>(producerFactory());
+        var template = new KafkaTemplate<>(retryProducerFactory());
+        template.setObservationEnabled(true);
+        return template;
     }
 
     private NewTopic buildTopic(String name) {
         return TopicBuilder
                 .name(name)
                 .replicas(REPLICA_COUNT)
-                .partitions(PARTITION_COUNT)
+                .partitions(this.partitionCount)
                 .build();
     }
 
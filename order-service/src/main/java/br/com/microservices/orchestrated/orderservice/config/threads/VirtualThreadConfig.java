@@ -0,0 +1,23 @@
+package br.com.microservices.orchestrated.orderservice.config.threads;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+
+/**
+ * In virtual thread mode Tomcat handles each request on its own virtual thread, which unmounts while
+ * the request waits on MongoDB or on the broker, instead of holding one of the request pool threads.
+ */
+@Configuration
+@ConditionalOnProperty(value = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
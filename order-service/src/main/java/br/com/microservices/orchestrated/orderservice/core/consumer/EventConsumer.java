@@ -1,28 +1,55 @@
 package br.com.microservices.orchestrated.orderservice.core.consumer;
 
+import br.com.microservices.orchestrated.orderservice.core.document.Event;
+import br.com.microservices.orchestrated.orderservice.core.enums.EHistoryPart;
+import br.com.microservices.orchestrated.orderservice.core.enums.ESagaHeader;
 import br.com.microservices.orchestrated.orderservice.core.service.EventService;
-import br.com.microservices.orchestrated.orderservice.core.utils.JsonUtil;
+import br.com.microservices.orchestrated.orderservice.core.utils.SagaLog;
+import br.com.microservices.orchestrated.orderservice.core.utils.SagaMetrics;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 @Slf4j
 @Component
 @AllArgsConstructor
 public class EventConsumer {
 
     private EventService eventService;
-    private final JsonUtil jsonUtil;
+    private SagaMetrics sagaMetrics;
+    private SagaLog sagaLog;
 
     @KafkaListener(
             groupId = "${spring.kafka.consumer.group-id}",
             topics = "${spring.kafka.topic.notify-ending}"
     )
 
-    public void consumeNotifyEndingEvent(String payload) {
-        log.info("Receiving ending notification event {} from notify-ending topic", payload);
-        var event = jsonUtil.toEvent(payload);
-        eventService.notifyEnding(event);
+    public void consumeNotifyEndingEvent(ConsumerRecord<String, Event> record) {
+        var event = record.value();
+        var historyPart = this.readHistoryPart(record);
+        if (sagaLog.isSampled(event.getOrderId(), event.getStatus()))
+            log.info("Receiving ending notification event {} from notify-ending topic", sagaLog.payload(event));
+        sagaMetrics.recordQueueDelay(record);
+        sagaMetrics.timeStep(record.topic(), event.getOrderId(), record.serializedValueSize(), () -> this.notifyEnding(event, historyPart));
+    }
+
+    private void notifyEnding(Event event, EHistoryPart historyPart) {
+
+        if (historyPart == null)
+            eventService.notifyEnding(event);
+        else if (EHistoryPart.PARTIAL == historyPart)
+            eventService.appendHistory(event);
+        else
+            eventService.notifyEndingWithHistory(event);
+    }
+
+    private EHistoryPart readHistoryPart(ConsumerRecord<String, Event> record) {
+
+        var header = record.headers().lastHeader(ESagaHeader.HISTORY_PART.getHeader());
+        return header == null ? null : EHistoryPart.valueOf(new String(header.value(), UTF_8));
     }
 }
@@ -2,19 +2,23 @@ package br.com.microservices.orchestrated.orderservice.core.controller;
 
 import br.com.microservices.orchestrated.orderservice.core.document.Event;
 import br.com.microservices.orchestrated.orderservice.core.dto.EventFilters;
+import br.com.microservices.orchestrated.orderservice.core.dto.EventPage;
+import br.com.microservices.orchestrated.orderservice.core.dto.EventPageRequest;
 import br.com.microservices.orchestrated.orderservice.core.service.EventService;
 import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @AllArgsConstructor
 @RequestMapping(value = "/api/event")
 public class EventController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final EventService eventService;
 
     @GetMapping
@@ -23,7 +27,12 @@ public class EventController {
     }
 
     @GetMapping(value = "/all")
-    private List<Event> findAll() {
-        return this.eventService.findAll();
+    private EventPage findAll(EventPageRequest pageRequest) {
+        return this.eventService.findPage(pageRequest);
+    }
+
+    @GetMapping(value = "/stream", produces = NDJSON)
+    private ResponseEntity<StreamingResponseBody> streamAll() {
+        return ResponseEntity.ok().body(this.eventService::streamAll);
     }
 }
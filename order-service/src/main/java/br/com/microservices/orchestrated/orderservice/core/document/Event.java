@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -15,6 +16,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "event")
+@CompoundIndex(name = "createdAt_id", def = "{'createdAt': -1, '_id': -1}")
 public class Event {
 
     @Id
@@ -25,5 +27,6 @@ public class Event {
     private String source;
     private String status;
     private List<History> eventHistory;
+    private int historySequence;
     private LocalDateTime createdAt;
 }
@@ -17,4 +17,5 @@ public class History {
     private String status;
     private String message;
     private LocalDateTime createdAt;
+    private int sequence;
 }
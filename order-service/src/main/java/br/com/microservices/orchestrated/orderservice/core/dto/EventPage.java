@@ -0,0 +1,21 @@
+package br.com.microservices.orchestrated.orderservice.core.dto;
+
+import br.com.microservices.orchestrated.orderservice.core.document.Event;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of events, newest first. The next page is requested with {@code nextCursor}, which is
+ * null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventPage {
+
+    private List<Event> events;
+    private String nextCursor;
+}
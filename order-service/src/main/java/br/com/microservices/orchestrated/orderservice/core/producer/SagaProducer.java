@@ -1,28 +1,85 @@
 package br.com.microservices.orchestrated.orderservice.core.producer;
 
+import br.com.microservices.orchestrated.orderservice.config.kafka.DeadLetterRecoverer;
+import br.com.microservices.orchestrated.orderservice.core.document.Event;
+import br.com.microservices.orchestrated.orderservice.core.enums.ESagaHeader;
+import br.com.microservices.orchestrated.orderservice.core.utils.EventCodec;
+import br.com.microservices.orchestrated.orderservice.core.utils.SagaLog;
+import br.com.microservices.orchestrated.orderservice.core.utils.SagaMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.util.ObjectUtils.isEmpty;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class SagaProducer {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final EventCodec eventCodec;
+    private final SagaMetrics sagaMetrics;
+    private final SagaLog sagaLog;
+    private final SendWindow sendWindow;
 
-    @Value(value = "spring.kafka.topic.start-saga")
+    @Value(value = "${spring.kafka.topic.start-saga}")
     private String startSagaTopic;
 
-    public void sendEvent(String payload) {
+    /**
+     * Errors raised while sending, including a send window that stays full, reach the caller instead of
+     * the saga silently never starting. Failures reported later by the producer are dead lettered.
+     * The event is encoded up front, so the window holds its actual size.
+     */
+    public void sendEvent(Event event) {
+
+        if (sagaLog.isSampled(event.getOrderId(), event.getStatus()))
+            log.info("Sending event to topic {} with data {}", startSagaTopic, sagaLog.payload(event));
+
+        var record = this.createRecord(event);
+        sendWindow
+                .send(record.value().length, () -> sagaMetrics.timeSend(startSagaTopic, event.getOrderId(), () -> kafkaTemplate.send(record)))
+                .whenComplete((result, e) -> {
+                    if (e != null)
+                        this.deadLetter(record, event, e);
+                });
+    }
+
+    /**
+     * The producer already retried the send until its delivery timeout, so the record is kept in the
+     * dead letter topic of its destination instead.
+     */
+    private void deadLetter(ProducerRecord<String, byte[]> record, Event event, Throwable cause) {
+
+        log.error("Error trying to send data to topic {} with data {}, sending it to the dead letter topic", startSagaTopic, event, cause);
+        var deadLetter = DeadLetterRecoverer.toDeadLetter(record, cause);
+
+        kafkaTemplate
+                .send(deadLetter)
+                .whenComplete((result, e) -> {
+                    if (e != null)
+                        log.error("Error trying to send event {} to dead letter topic {}", event.getId(), deadLetter.topic(), e);
+                    else
+                        sagaMetrics.recordDeadLetter(deadLetter.topic());
+                });
+    }
+
+    private ProducerRecord<String, byte[]> createRecord(Event event) {
+
+        var record = new ProducerRecord<>(startSagaTopic, event.getOrderId(), eventCodec.encode(event));
+        this.addHeader(record, ESagaHeader.EVENT_ID, event.getId());
+        this.addHeader(record, ESagaHeader.ORDER_ID, event.getOrderId());
+        this.addHeader(record, ESagaHeader.TRANSACTION_ID, event.getTransactionId());
+        return record;
+    }
+
+    private void addHeader(ProducerRecord<String, byte[]> record, ESagaHeader header, String value) {
 
-        try {
-            log.info("Sending event to topic {} with data {}", startSagaTopic, payload);
-            kafkaTemplate.send(startSagaTopic, payload);
-        } catch (Exception e) {
-            log.error("Error trying to send data to topic {} with data {}", startSagaTopic, payload, e);
-        }
+        if (!isEmpty(value))
+            record.headers().add(header.getHeader(), value.getBytes(UTF_8));
     }
 }
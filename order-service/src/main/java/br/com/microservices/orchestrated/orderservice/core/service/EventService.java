@@ -2,23 +2,51 @@ package br.com.microservices.orchestrated.orderservice.core.service;
 
 import br.com.microservices.orchestrated.orderservice.config.exception.ValidationException;
 import br.com.microservices.orchestrated.orderservice.core.document.Event;
+import br.com.microservices.orchestrated.orderservice.core.document.History;
 import br.com.microservices.orchestrated.orderservice.core.dto.EventFilters;
+import br.com.microservices.orchestrated.orderservice.core.dto.EventPage;
+import br.com.microservices.orchestrated.orderservice.core.dto.EventPageRequest;
 import br.com.microservices.orchestrated.orderservice.core.repository.EventRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 import static io.micrometer.common.util.StringUtils.isEmpty;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
 
 @Slf4j
 @Service
 @AllArgsConstructor
 public class EventService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int STREAM_BATCH_SIZE = 500;
+    private static final String CURSOR_SEPARATOR = "|";
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+
     private final EventRepository eventRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
 
     public void notifyEnding(Event event) {
 
@@ -30,9 +58,66 @@ public class EventService {
         log.info("Order {} with Saga notified! TransactionID: {}", event.getOrderId(), event.getTransactionId());
     }
 
-    public List<Event> findAll() {
+    /**
+     * Stores the history entries of one saga hop, sent while the saga runs in delta history mode.
+     */
+    public void appendHistory(Event event) {
+
+        if (event.getEventHistory() == null || event.getEventHistory().isEmpty())
+            return;
+
+        var update = new Update().addToSet("eventHistory").each(event.getEventHistory().toArray());
+        this.mongoTemplate.updateFirst(query(where("id").is(event.getId())), update, Event.class);
+    }
+
+    /**
+     * Rebuilds the full timeline from the entries stored by {@link #appendHistory} and the ones carried
+     * by the final message, dropping entries delivered more than once.
+     */
+    public void notifyEndingWithHistory(Event event) {
 
-        return eventRepository.findAllByOrderByCreatedAtDesc();
+        var stored = this.eventRepository.findById(event.getId()).map(Event::getEventHistory).orElse(null);
+        event.setEventHistory(mergeHistory(stored, event.getEventHistory()));
+        this.notifyEnding(event);
+    }
+
+    /**
+     * Reads one page after the cursor, seeking on the (createdAt, id) index instead of skipping, so
+     * every page costs the same however deep it is.
+     */
+    public EventPage findPage(EventPageRequest request) {
+
+        var size = this.validatePageSize(request.getSize());
+        var query = new Query().with(NEWEST_FIRST).limit(size + 1);
+
+        if (!isEmpty(request.getCursor()))
+            query.addCriteria(this.after(request.getCursor()));
+
+        var events = this.mongoTemplate.find(query, Event.class);
+        if (events.size() <= size)
+            return new EventPage(events, null);
+
+        var page = events.subList(0, size);
+        return new EventPage(page, toCursor(page.get(size - 1)));
+    }
+
+    /**
+     * Writes every event as one JSON line while iterating a Mongo cursor, so only one cursor batch is
+     * held in memory whatever the size of the collection.
+     */
+    public void streamAll(OutputStream outputStream) throws IOException {
+
+        var query = new Query().with(NEWEST_FIRST).cursorBatchSize(STREAM_BATCH_SIZE);
+        var writer = this.objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        try (var events = this.mongoTemplate.stream(query, Event.class)) {
+            var iterator = events.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(outputStream, iterator.next());
+                outputStream.write('\n');
+            }
+        }
+        outputStream.flush();
     }
 
     public Event findByFilters(EventFilters filters) {
@@ -55,12 +140,56 @@ public class EventService {
         return this.eventRepository.findTop1ByTransactionIdOrderByCreatedAtDesc(transactionId).orElseThrow(() -> new ValidationException("Event not found by transactionID."));
     }
 
+    private int validatePageSize(Integer size) {
+
+        if (size == null)
+            return DEFAULT_PAGE_SIZE;
+
+        if (size < 1 || size > MAX_PAGE_SIZE)
+            throw new ValidationException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+
+        return size;
+    }
+
+    private Criteria after(String cursor) {
+
+        try {
+            var decoded = new String(Base64.getUrlDecoder().decode(cursor), UTF_8);
+            var separator = decoded.indexOf(CURSOR_SEPARATOR);
+            var createdAt = LocalDateTime.parse(decoded.substring(0, separator));
+            var id = decoded.substring(separator + 1);
+
+            return new Criteria().orOperator(
+                    where("createdAt").lt(createdAt),
+                    where("createdAt").is(createdAt).and("id").lt(id));
+        } catch (RuntimeException e) {
+            throw new ValidationException("Invalid cursor.");
+        }
+    }
+
+    private static String toCursor(Event event) {
+
+        var cursor = event.getCreatedAt() + CURSOR_SEPARATOR + event.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(UTF_8));
+    }
+
     private void validateEmptyFilters(EventFilters filters) {
 
         if (isEmpty(filters.getOrderId()) && isEmpty(filters.getTransactionId()))
             throw new ValidationException("OrderID or TransactionID must be informed.");
     }
 
+    private static List<History> mergeHistory(List<History> stored, List<History> delta) {
+
+        var timeline = new LinkedHashMap<String, History>();
+        Stream.of(stored, delta)
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .forEach(history -> timeline.putIfAbsent(history.getSequence() + ":" + history.getSource(), history));
+
+        return timeline.values().stream().sorted(Comparator.comparingInt(History::getSequence)).toList();
+    }
+
     public Event save(Event event) {
 
         return this.eventRepository.save(event);
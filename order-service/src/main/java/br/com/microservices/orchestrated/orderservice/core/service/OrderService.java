@@ -5,7 +5,6 @@ import br.com.microservices.orchestrated.orderservice.core.document.Order;
 import br.com.microservices.orchestrated.orderservice.core.dto.OrderRequest;
 import br.com.microservices.orchestrated.orderservice.core.producer.SagaProducer;
 import br.com.microservices.orchestrated.orderservice.core.repository.OrderRepository;
-import br.com.microservices.orchestrated.orderservice.core.utils.JsonUtil;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -23,7 +22,6 @@ public class OrderService {
 
     private final EventService eventService;
     private final SagaProducer sagaProducer;
-    private final JsonUtil jsonUtil;
     private final OrderRepository orderRepository;
 
     public Order createOrder(OrderRequest orderRequest) {
@@ -35,7 +33,7 @@ public class OrderService {
                 .build();
 
         orderRepository.save(order);
-        sagaProducer.sendEvent(jsonUtil.toJson(createPayload(order)));
+        sagaProducer.sendEvent(createPayload(order));
         return order;
     }
 
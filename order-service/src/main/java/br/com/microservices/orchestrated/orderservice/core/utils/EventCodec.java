@@ -0,0 +1,448 @@
+package br.com.microservices.orchestrated.orderservice.core.utils;
+
+import br.com.microservices.orchestrated.orderservice.core.document.Event;
+import br.com.microservices.orchestrated.orderservice.core.document.History;
+import br.com.microservices.orchestrated.orderservice.core.document.Order;
+import br.com.microservices.orchestrated.orderservice.core.document.OrderProducts;
+import br.com.microservices.orchestrated.orderservice.core.document.Product;
+import br.com.microservices.orchestrated.orderservice.core.enums.EEventFormat;
+import br.com.microservices.orchestrated.orderservice.core.jfr.DecodeEvent;
+import br.com.microservices.orchestrated.orderservice.core.jfr.EncodeEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes {@link Event} in a compact versioned binary layout, or as JSON when configured so.
+ * Decoding detects the format of each message, so both can be consumed during a rollout.
+ *
+ * <p>Layout: magic, version, status, source, historySequence, id, transactionId, orderId, createdAt,
+ * payload and then the history entries up to the end of the message, so appending an entry is a plain
+ * concatenation. Strings are written as varint length plus one (zero is null) followed by UTF-8 bytes
+ * and statuses as the ordinal plus one.
+ *
+ * <p>Version 2 added historySequence and the sequence of each history entry. Version 1 events are still
+ * read, their entries numbered by position, so messages written before the upgrade are not misread.
+ */
+@Slf4j
+@Component
+public class EventCodec {
+
+    public static final byte MAGIC = (byte) 0xE5;
+    public static final byte VERSION = 2;
+    public static final byte UNSEQUENCED_VERSION = 1;
+
+    private static final int MAX_POOLED_BUFFER = 1024 * 1024;
+    private static final List<String> STATUSES = List.of("SUCCESS", "ROLLBACK_PENDING", "FAIL");
+    private static final ThreadLocal<Output> BUFFERS = ThreadLocal.withInitial(Output::new);
+
+    private final ObjectMapper objectMapper;
+    private final EEventFormat format;
+
+    public EventCodec(ObjectMapper objectMapper,
+                      @Value("${spring.kafka.event-format}") EEventFormat format) {
+
+        this.objectMapper = objectMapper;
+        this.format = format;
+    }
+
+    public static boolean isBinary(byte[] data) {
+
+        return data != null && data.length > 1 && data[0] == MAGIC;
+    }
+
+    public byte[] encode(Event event) {
+
+        var jfrEvent = new EncodeEvent();
+        jfrEvent.begin();
+        var data = this.encodeEvent(event);
+        if (data != null)
+            jfrEvent.commit(event.getOrderId(), event.getSource(), data.length, this.format.name());
+        return data;
+    }
+
+    private byte[] encodeEvent(Event event) {
+
+        if (event == null)
+            return null;
+
+        if (EEventFormat.JSON == this.format)
+            return this.encodeJson(event);
+
+        var output = BUFFERS.get();
+        try {
+            writeEvent(output, event);
+            return output.toByteArray();
+        } finally {
+            output.reset();
+        }
+    }
+
+    public Event decode(byte[] data) {
+
+        var jfrEvent = new DecodeEvent();
+        jfrEvent.begin();
+        var event = this.decodeEvent(data);
+        if (event != null)
+            jfrEvent.commit(event.getOrderId(), event.getSource(), data.length, (isBinary(data) ? EEventFormat.BINARY : EEventFormat.JSON).name());
+        return event;
+    }
+
+    private Event decodeEvent(byte[] data) {
+
+        if (data == null || data.length == 0)
+            return null;
+
+        try {
+            return isBinary(data)
+                    ? readEvent(new Input(data))
+                    : this.objectMapper.readValue(data, Event.class);
+        } catch (Exception e) {
+            log.error("Error trying to decode event", e);
+            return null;
+        }
+    }
+
+    private byte[] encodeJson(Event event) {
+
+        try {
+            return this.objectMapper.writeValueAsBytes(event);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return null;
+        }
+    }
+
+    private static void writeEvent(Output output, Event event) {
+
+        output.writeByte(MAGIC);
+        output.writeByte(VERSION);
+        output.writeStatus(event.getStatus());
+        output.writeString(event.getSource());
+        output.writeVarInt(event.getHistorySequence());
+        output.writeString(event.getId());
+        output.writeString(event.getTransactionId());
+        output.writeString(event.getOrderId());
+        output.writeDateTime(event.getCreatedAt());
+        writeOrder(output, event.getPayload());
+
+        if (event.getEventHistory() != null) {
+            for (var history : event.getEventHistory())
+                writeHistory(output, history);
+        }
+    }
+
+    private static void writeOrder(Output output, Order order) {
+
+        output.writeBoolean(order != null);
+        if (order == null)
+            return;
+
+        output.writeString(order.getId());
+        output.writeString(order.getTransactionId());
+        output.writeDateTime(order.getCreatedAt());
+        output.writeDouble(order.getTotalAmount());
+        output.writeInt(order.getTotalItems());
+
+        var products = order.getProducts();
+        output.writeVarInt(products == null ? 0 : products.size() + 1);
+        if (products == null)
+            return;
+
+        for (var orderProducts : products) {
+            var product = orderProducts.getProduct();
+            output.writeBoolean(product != null);
+            if (product != null) {
+                output.writeString(product.getCode());
+                output.writeDouble(product.getUnitValue());
+            }
+            output.writeInt(orderProducts.getQuantity());
+        }
+    }
+
+    private static void writeHistory(Output output, History history) {
+
+        output.writeVarInt(history.getSequence());
+        output.writeString(history.getSource());
+        output.writeStatus(history.getStatus());
+        output.writeString(history.getMessage());
+        output.writeDateTime(history.getCreatedAt());
+    }
+
+    private static Event readEvent(Input input) throws IOException {
+
+        var sequenced = input.readHeader() == VERSION;
+        var event = new Event();
+        event.setStatus(input.readStatus());
+        event.setSource(input.readString());
+        if (sequenced)
+            event.setHistorySequence(input.readVarInt());
+        event.setId(input.readString());
+        event.setTransactionId(input.readString());
+        event.setOrderId(input.readString());
+        event.setCreatedAt(input.readDateTime());
+        event.setPayload(readOrder(input));
+
+        if (sequenced && !input.hasRemaining())
+            return event;
+
+        var eventHistory = new ArrayList<History>();
+        while (input.hasRemaining())
+            eventHistory.add(readHistory(input, sequenced ? input.readVarInt() : eventHistory.size() + 1));
+
+        if (!sequenced)
+            event.setHistorySequence(eventHistory.size());
+        if (!eventHistory.isEmpty())
+            event.setEventHistory(eventHistory);
+
+        return event;
+    }
+
+    private static Order readOrder(Input input) throws IOException {
+
+        if (!input.readBoolean())
+            return null;
+
+        var order = new Order();
+        order.setId(input.readString());
+        order.setTransactionId(input.readString());
+        order.setCreatedAt(input.readDateTime());
+        order.setTotalAmount(input.readDouble());
+        order.setTotalItems(input.readInt());
+
+        var size = input.readVarInt() - 1;
+        if (size < 0)
+            return order;
+
+        var products = new ArrayList<OrderProducts>(size);
+        for (var i = 0; i < size; i++) {
+            var product = input.readBoolean() ? new Product(input.readString(), input.readDouble()) : null;
+            products.add(new OrderProducts(product, input.readInt()));
+        }
+        order.setProducts(products);
+        return order;
+    }
+
+    private static History readHistory(Input input, int sequence) throws IOException {
+
+        return History
+                .builder()
+                .sequence(sequence)
+                .source(input.readString())
+                .status(input.readStatus())
+                .message(input.readString())
+                .createdAt(input.readDateTime())
+                .build();
+    }
+
+    private static final class Output {
+
+        private byte[] buffer = new byte[512];
+        private int position;
+
+        void writeByte(int value) {
+
+            this.ensureCapacity(1);
+            this.buffer[this.position++] = (byte) value;
+        }
+
+        void writeBoolean(boolean value) {
+
+            this.writeByte(value ? 1 : 0);
+        }
+
+        void writeVarInt(int value) {
+
+            this.writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long value) {
+
+            this.ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                this.buffer[this.position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.buffer[this.position++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+
+            this.writeVarInt((value << 1) ^ (value >> 31));
+        }
+
+        void writeDouble(double value) {
+
+            var bits = Double.doubleToLongBits(value);
+            this.ensureCapacity(8);
+            for (var shift = 56; shift >= 0; shift -= 8)
+                this.buffer[this.position++] = (byte) (bits >>> shift);
+        }
+
+        void writeString(String value) {
+
+            if (value == null) {
+                this.writeVarInt(0);
+                return;
+            }
+
+            var bytes = value.getBytes(StandardCharsets.UTF_8);
+            this.writeVarInt(bytes.length + 1);
+            this.ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+            this.position += bytes.length;
+        }
+
+        void writeStatus(String status) {
+
+            var code = status == null ? -1 : STATUSES.indexOf(status);
+            if (status != null && code < 0)
+                throw new IllegalArgumentException("Unknown saga status " + status);
+
+            this.writeByte(code + 1);
+        }
+
+        void writeDateTime(LocalDateTime value) {
+
+            this.writeBoolean(value != null);
+            if (value == null)
+                return;
+
+            var seconds = value.toEpochSecond(ZoneOffset.UTC);
+            this.writeVarLong((seconds << 1) ^ (seconds >> 63));
+            this.writeVarInt(value.getNano());
+        }
+
+        byte[] toByteArray() {
+
+            return Arrays.copyOf(this.buffer, this.position);
+        }
+
+        void reset() {
+
+            this.position = 0;
+            if (this.buffer.length > MAX_POOLED_BUFFER)
+                this.buffer = new byte[512];
+        }
+
+        private void ensureCapacity(int length) {
+
+            if (this.position + length > this.buffer.length)
+                this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length << 1, this.position + length));
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] buffer;
+        private int position;
+
+        Input(byte[] buffer) {
+
+            this.buffer = buffer;
+        }
+
+        boolean hasRemaining() {
+
+            return this.position < this.buffer.length;
+        }
+
+        byte readByte() throws IOException {
+
+            if (!this.hasRemaining())
+                throw new IOException("Unexpected end of event");
+
+            return this.buffer[this.position++];
+        }
+
+        byte readHeader() throws IOException {
+
+            if (this.readByte() != MAGIC)
+                throw new IOException("Event is not binary encoded");
+
+            var version = this.readByte();
+            if (version != VERSION && version != UNSEQUENCED_VERSION)
+                throw new IOException("Unsupported event version " + version);
+
+            return version;
+        }
+
+        boolean readBoolean() throws IOException {
+
+            return this.readByte() != 0;
+        }
+
+        int readVarInt() throws IOException {
+
+            return (int) this.readVarLong();
+        }
+
+        long readVarLong() throws IOException {
+
+            var value = 0L;
+            for (var shift = 0; shift < 64; shift += 7) {
+                var current = this.readByte();
+                value |= (long) (current & 0x7F) << shift;
+                if ((current & 0x80) == 0)
+                    return value;
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        int readInt() throws IOException {
+
+            var value = this.readVarInt();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        double readDouble() throws IOException {
+
+            var bits = 0L;
+            for (var i = 0; i < 8; i++)
+                bits = (bits << 8) | (this.readByte() & 0xFF);
+            return Double.longBitsToDouble(bits);
+        }
+
+        String readString() throws IOException {
+
+            var length = this.readVarInt() - 1;
+            if (length < 0)
+                return null;
+
+            if (length > this.buffer.length - this.position)
+                throw new IOException("Unexpected end of event");
+
+            var value = new String(this.buffer, this.position, length, StandardCharsets.UTF_8);
+            this.position += length;
+            return value;
+        }
+
+        String readStatus() throws IOException {
+
+            var code = this.readByte();
+            if (code < 0 || code > STATUSES.size())
+                throw new IOException("Unknown saga status " + code);
+
+            return code == 0 ? null : STATUSES.get(code - 1);
+        }
+
+        LocalDateTime readDateTime() throws IOException {
+
+            if (!this.readBoolean())
+                return null;
+
+            var value = this.readVarLong();
+            var seconds = (value >>> 1) ^ -(value & 1);
+            return LocalDateTime.ofEpochSecond(seconds, this.readVarInt(), ZoneOffset.UTC);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package br.com.microservices.orchestrated.orderservice.core.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Decides which sagas are logged in detail and keeps logged payloads under a size cap. Sagas are
+ * sampled on the hash of their order id, so every service keeps the same sagas and a sampled saga is
+ * logged end to end. Failed and compensating hops are always logged.
+ * <p>
+ * A message is logged or skipped when it arrives, before anyone knows whether the saga will fail, so for
+ * a saga that is not sampled this service only logs the notifications of failed and compensating hops.
+ * The orchestrator keeps every hop of such a saga until it ends and writes them all if it fails.
+ */
+@Component
+public class SagaLog {
+
+    private static final int SAMPLE_BUCKETS = 10_000;
+    private static final Set<String> FAILED_STATUSES = Set.of("FAIL", "ROLLBACK_PENDING");
+
+    @Value(value = "${logging.saga.sample-rate}")
+    private double sampleRate;
+
+    @Value(value = "${logging.saga.payload-max-length}")
+    private int payloadMaxLength;
+
+    public boolean isSampled(String orderId, String status) {
+
+        if (orderId == null || (status != null && FAILED_STATUSES.contains(status)))
+            return true;
+
+        return Math.floorMod(orderId.hashCode(), SAMPLE_BUCKETS) < this.sampleRate * SAMPLE_BUCKETS;
+    }
+
+    /**
+     * Wraps the payload so it is only rendered, and cut to the cap, when the line is written.
+     */
+    public Object payload(Object payload) {
+        return new TruncatedPayload(payload, this.payloadMaxLength);
+    }
+
+    private record TruncatedPayload(Object payload, int maxLength) {
+
+        @Override
+        public String toString() {
+
+            var text = String.valueOf(this.payload);
+            if (text.length() <= this.maxLength)
+                return text;
+
+            return text.substring(0, this.maxLength) + "... (" + text.length() + " chars)";
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package br.com.microservices.orchestrated.orderservice.core.utils;
+
+import br.com.microservices.orchestrated.orderservice.config.kafka.DeadLetterRecoverer;
+import br.com.microservices.orchestrated.orderservice.core.jfr.KafkaSendEvent;
+import br.com.microservices.orchestrated.orderservice.core.jfr.StepEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Timers for the saga hops handled by this service. They are published as histogram buckets (see
+ * management.metrics.distribution), so percentiles are aggregated by Prometheus instead of being kept
+ * here, and each timer is looked up once per step and outcome. Steps and sends are also recorded as
+ * JFR events carrying the order they belong to.
+ */
+@Component
+@RequiredArgsConstructor
+public class SagaMetrics {
+
+    private static final String QUEUE_DELAY_METRIC = "saga.step.queue.delay";
+    private static final String PROCESSING_METRIC = "saga.step.processing";
+    private static final String SEND_METRIC = "saga.producer.send";
+    private static final String STEP_TAG = "step";
+    private static final String TOPIC_TAG = "topic";
+    private static final String OUTCOME_TAG = "outcome";
+    private static final String SUCCESS = "SUCCESS";
+    private static final String ERROR = "ERROR";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Time the record waited in its topic, from its producer timestamp until now. Clock skew between
+     * hosts is recorded as no delay.
+     */
+    public void recordQueueDelay(ConsumerRecord<?, ?> record) {
+
+        var delay = Math.max(0, System.currentTimeMillis() - record.timestamp());
+        this.timer(QUEUE_DELAY_METRIC, STEP_TAG, record.topic(), null).record(delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Counts a record a producer sent straight to a dead letter topic, along with the records the
+     * listeners dead letter.
+     */
+    public void recordDeadLetter(String topic) {
+        this.meterRegistry.counter(DeadLetterRecoverer.DLT_RECORDS_METRIC, TOPIC_TAG, topic).increment();
+    }
+
+    /**
+     * Runs the step, recording its processing time with an error outcome when it throws.
+     */
+    public void timeStep(String step, String orderId, int payloadSize, Runnable processing) {
+
+        var jfrEvent = new StepEvent();
+        jfrEvent.begin();
+        var start = System.nanoTime();
+        var outcome = ERROR;
+
+        try {
+            processing.run();
+            outcome = SUCCESS;
+        } finally {
+            this.timer(PROCESSING_METRIC, STEP_TAG, step, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            jfrEvent.commit(orderId, step, payloadSize);
+        }
+    }
+
+    /**
+     * Records the time until the broker acknowledges the send. The returned future is the one sent.
+     */
+    public <K, V> CompletableFuture<SendResult<K, V>> timeSend(String topic, String orderId,
+                                                             Supplier<CompletableFuture<SendResult<K, V>>> send) {
+
+        var jfrEvent = new KafkaSendEvent();
+        jfrEvent.begin();
+        var start = System.nanoTime();
+        var future = send.get();
+
+        future.whenComplete((result, e) -> {
+            this.timer(SEND_METRIC, TOPIC_TAG, topic, e == null ? SUCCESS : ERROR).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            jfrEvent.commit(orderId, topic, e == null ? result.getRecordMetadata().serializedValueSize() : 0);
+        });
+        return future;
+    }
+
+    private Timer timer(String name, String tag, String value, String outcome) {
+
+        return this.timers.computeIfAbsent(new TimerKey(name, value, outcome), key -> {
+            var builder = Timer.builder(name).tag(tag, value);
+            if (outcome != null)
+                builder.tag(OUTCOME_TAG, outcome);
+            return builder.register(this.meterRegistry);
+        });
+    }
+
+    private record TimerKey(String name, String value, String outcome) {
+
+    }
+}
@@ -0,0 +1,122 @@
+package br.com.microservices.orchestrated.orderservice.core.service;
+
+import br.com.microservices.orchestrated.orderservice.core.document.Event;
+import br.com.microservices.orchestrated.orderservice.core.document.History;
+import br.com.microservices.orchestrated.orderservice.core.repository.EventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * In delta history mode each hop's entries reach the order service on their own, possibly out of order
+ * or more than once, and parallel branches share a sequence. The final message rebuilds the timeline.
+ */
+class EventServiceTest {
+
+    private static final String EVENT_ID = "e-1";
+
+    private final EventRepository eventRepository = mock(EventRepository.class);
+    private final EventService eventService = new EventService(this.eventRepository, mock(MongoTemplate.class), new ObjectMapper());
+
+    @Test
+    void ordersStoredAndFinalEntriesBySequence() {
+
+        this.stored(history(3, "PAYMENT_SERVICE"), history(1, "ORCHESTRATOR"), history(2, "PRODUCT_VALIDATION_SERVICE"));
+
+        var saved = this.notifyEndingWithHistory(history(5, "ORCHESTRATOR"), history(4, "INVENTORY_SERVICE"));
+
+        assertThat(saved.getEventHistory())
+                .extracting(History::getSequence, History::getSource)
+                .containsExactly(
+                        tuple(1, "ORCHESTRATOR"),
+                        tuple(2, "PRODUCT_VALIDATION_SERVICE"),
+                        tuple(3, "PAYMENT_SERVICE"),
+                        tuple(4, "INVENTORY_SERVICE"),
+                        tuple(5, "ORCHESTRATOR"));
+    }
+
+    @Test
+    void dropsEntriesDeliveredMoreThanOnce() {
+
+        var first = history(1, "ORCHESTRATOR");
+        this.stored(first, history(2, "PRODUCT_VALIDATION_SERVICE"), history(1, "ORCHESTRATOR"));
+
+        var saved = this.notifyEndingWithHistory(history(2, "PRODUCT_VALIDATION_SERVICE"), history(3, "ORCHESTRATOR"));
+
+        assertThat(saved.getEventHistory()).extracting(History::getSequence).containsExactly(1, 2, 3);
+        assertThat(saved.getEventHistory().get(0)).isSameAs(first);
+    }
+
+    @Test
+    void keepsEveryBranchOfAParallelGroup() {
+
+        this.stored(history(1, "ORCHESTRATOR"), history(2, "PRODUCT_VALIDATION_SERVICE"), history(3, "INVENTORY_SERVICE"));
+
+        var saved = this.notifyEndingWithHistory(history(3, "PAYMENT_SERVICE"), history(3, "INVENTORY_SERVICE"), history(4, "ORCHESTRATOR"));
+
+        assertThat(saved.getEventHistory())
+                .extracting(History::getSequence, History::getSource)
+                .containsExactly(
+                        tuple(1, "ORCHESTRATOR"),
+                        tuple(2, "PRODUCT_VALIDATION_SERVICE"),
+                        tuple(3, "INVENTORY_SERVICE"),
+                        tuple(3, "PAYMENT_SERVICE"),
+                        tuple(4, "ORCHESTRATOR"));
+    }
+
+    @Test
+    void usesTheFinalEntriesWhenNoPartialHistoryWasStored() {
+
+        when(this.eventRepository.findById(EVENT_ID)).thenReturn(Optional.empty());
+
+        var saved = this.notifyEndingWithHistory(history(2, "ORCHESTRATOR"), history(1, "ORCHESTRATOR"));
+
+        assertThat(saved.getEventHistory()).extracting(History::getSequence).containsExactly(1, 2);
+        assertThat(saved.getCreatedAt()).isNotNull();
+    }
+
+    @Test
+    void keepsStoredEntriesWhenTheFinalMessageCarriesNone() {
+
+        this.stored(history(2, "PAYMENT_SERVICE"), history(1, "ORCHESTRATOR"));
+
+        var saved = this.notifyEndingWithHistory();
+
+        assertThat(saved.getEventHistory()).extracting(History::getSequence).containsExactly(1, 2);
+    }
+
+    private void stored(History... history) {
+
+        var event = Event.builder().id(EVENT_ID).eventHistory(new ArrayList<>(List.of(history))).build();
+        when(this.eventRepository.findById(EVENT_ID)).thenReturn(Optional.of(event));
+    }
+
+    private Event notifyEndingWithHistory(History... history) {
+
+        when(this.eventRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        var event = Event.builder().id(EVENT_ID).orderId("o-1").eventHistory(history.length == 0 ? null : List.of(history)).build();
+
+        this.eventService.notifyEndingWithHistory(event);
+
+        var saved = ArgumentCaptor.forClass(Event.class);
+        verify(this.eventRepository).save(saved.capture());
+        return saved.getValue();
+    }
+
+    private static History history(int sequence, String source) {
+
+        return History.builder().sequence(sequence).source(source).status("SUCCESS").build();
+    }
+}
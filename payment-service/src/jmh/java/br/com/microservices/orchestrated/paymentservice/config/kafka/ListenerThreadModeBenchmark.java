@@ -0,0 +1,214 @@
+package br.com.microservices.orchestrated.paymentservice.config.kafka;
+
+import br.com.microservices.orchestrated.paymentservice.core.dto.*;
+import br.com.microservices.orchestrated.paymentservice.core.enums.EEventFormat;
+import br.com.microservices.orchestrated.paymentservice.core.enums.EHistoryMode;
+import br.com.microservices.orchestrated.paymentservice.core.enums.EProducerProfile;
+import br.com.microservices.orchestrated.paymentservice.core.enums.ESagaStatus;
+import br.com.microservices.orchestrated.paymentservice.core.utils.DatabaseBulkhead;
+import br.com.microservices.orchestrated.paymentservice.core.utils.EventCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.kafka.listener.AcknowledgingMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the listener thread modes at the same connection pool size, through the listener container
+ * factory and {@link RecordDispatcher} of {@link KafkaConfig} against an embedded broker. Each record
+ * is decoded by the container, does some work outside the database, then holds a connection of a
+ * simulated pool while it waits on the database. With platform threads each consumer handles its
+ * records one at a time; with virtual threads each record runs on its own thread and
+ * {@link DatabaseBulkhead} bounds them to the pool. Run with
+ * {@code ./gradlew jmh -Pjmh.includes=ListenerThreadModeBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListenerThreadModeBenchmark {
+
+    private static final String TOPIC = "listener-thread-mode-benchmark";
+    private static final String GROUP_ID = "listener-thread-mode-benchmark-group";
+    private static final int PARTITION_COUNT = 10;
+    private static final int RECORD_COUNT = 2_000;
+    private static final int ORDER_COUNT = 256;
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    @Param({"1", "10"})
+    private int concurrency;
+
+    @Param({"10"})
+    private int poolSize;
+
+    @Param({"1"})
+    private int databaseMillis;
+
+    @Param({"20000"})
+    private int workTokens;
+
+    private EmbeddedKafkaBroker broker;
+    private KafkaProducer<String, byte[]> producer;
+    private ConcurrentMessageListenerContainer<String, Event> container;
+    private RecordDispatcher recordDispatcher;
+    private DatabaseBulkhead databaseBulkhead;
+    private Semaphore connectionPool;
+    private String[] orderIds;
+    private byte[][] payloads;
+    private volatile CountDownLatch processed;
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        this.broker = new EmbeddedKafkaBroker(1, false, PARTITION_COUNT, TOPIC);
+        this.broker.afterPropertiesSet();
+
+        var objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        var eventCodec = new EventCodec(objectMapper, EEventFormat.BINARY, EHistoryMode.FULL);
+
+        this.orderIds = new String[ORDER_COUNT];
+        this.payloads = new byte[ORDER_COUNT][];
+        for (var i = 0; i < ORDER_COUNT; i++) {
+            var event = createEvent();
+            this.orderIds[i] = event.getOrderId();
+            this.payloads[i] = eventCodec.encode(event);
+        }
+
+        var props = new HashMap<String, Object>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, this.broker.getBrokersAsString());
+        EProducerProfile.THROUGHPUT.applyTo(props);
+        this.producer = new KafkaProducer<>(props, new StringSerializer(), new ByteArraySerializer());
+
+        var kafkaConfig = this.kafkaConfig(eventCodec);
+        this.recordDispatcher = kafkaConfig.recordDispatcher();
+        this.connectionPool = new Semaphore(this.poolSize, true);
+        this.databaseBulkhead = new DatabaseBulkhead(this.virtualThreads, this.poolSize);
+
+        this.container = kafkaConfig.kafkaListenerContainerFactory().createContainer(TOPIC);
+        this.container.setupMessageListener((AcknowledgingMessageListener<String, Event>) (record, acknowledgment) ->
+                this.recordDispatcher.dispatch(record, acknowledgment, this::processRecord));
+        this.container.start();
+        ContainerTestUtils.waitForAssignment(this.container, PARTITION_COUNT);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        this.container.stop();
+        this.recordDispatcher.close();
+        this.producer.close();
+        this.broker.destroy();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORD_COUNT)
+    public void processRecords() throws InterruptedException {
+
+        this.processed = new CountDownLatch(RECORD_COUNT);
+
+        for (var i = 0; i < RECORD_COUNT; i++) {
+            var order = i % ORDER_COUNT;
+            this.producer.send(new ProducerRecord<>(TOPIC, this.orderIds[order], this.payloads[order]));
+        }
+
+        this.processed.await();
+    }
+
+    private void processRecord() {
+
+        Blackhole.consumeCPU(this.workTokens);
+        this.databaseBulkhead.run(this::queryDatabase);
+        this.processed.countDown();
+    }
+
+    private void queryDatabase() {
+
+        this.connectionPool.acquireUninterruptibly();
+        try {
+            Thread.sleep(this.databaseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.connectionPool.release();
+        }
+    }
+
+    /**
+     * The configuration the service runs with, pointed at the embedded broker.
+     */
+    private KafkaConfig kafkaConfig(EventCodec eventCodec) {
+
+        var kafkaConfig = new KafkaConfig(eventCodec, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(kafkaConfig, "bootstrapServers", this.broker.getBrokersAsString());
+        ReflectionTestUtils.setField(kafkaConfig, "groupId", GROUP_ID);
+        ReflectionTestUtils.setField(kafkaConfig, "autoOffsetReset", "earliest");
+        ReflectionTestUtils.setField(kafkaConfig, "producerProfile", EProducerProfile.LATENCY);
+        ReflectionTestUtils.setField(kafkaConfig, "partitionCount", PARTITION_COUNT);
+        ReflectionTestUtils.setField(kafkaConfig, "listenerConcurrency", this.concurrency);
+        ReflectionTestUtils.setField(kafkaConfig, "virtualThreads", this.virtualThreads);
+        ReflectionTestUtils.setField(kafkaConfig, "maxPollRecords", 200);
+        ReflectionTestUtils.setField(kafkaConfig, "retryAttempts", 4);
+        ReflectionTestUtils.setField(kafkaConfig, "retryInitialIntervalMillis", 1_000L);
+        ReflectionTestUtils.setField(kafkaConfig, "retryMultiplier", 2.0);
+        ReflectionTestUtils.setField(kafkaConfig, "retryMaxIntervalMillis", 10_000L);
+        return kafkaConfig;
+    }
+
+    private static Event createEvent() {
+
+        var now = LocalDateTime.now();
+        var orderId = UUID.randomUUID().toString();
+        var transactionId = UUID.randomUUID().toString();
+        var products = List.of(
+                new OrderProducts(new Product("COMIC_BOOKS", 15.50), 3),
+                new OrderProducts(new Product("BOOKS", 9.90), 1),
+                new OrderProducts(new Product("MOVIES", 5.00), 2));
+
+        var order = Order
+                .builder()
+                .id(orderId)
+                .transactionId(transactionId)
+                .products(products)
+                .createdAt(now)
+                .totalAmount(66.40)
+                .totalItems(6)
+                .build();
+
+        return Event
+                .builder()
+                .id(UUID.randomUUID().toString())
+                .orderId(orderId)
+                .transactionId(transactionId)
+                .payload(order)
+                .source("ORCHESTRATOR")
+                .status(ESagaStatus.ROLLBACK_PENDING)
+                .eventHistory(List.of(new History("ORCHESTRATOR", ESagaStatus.ROLLBACK_PENDING, "Rollback started!", now, 1)))
+                .historySequence(1)
+                .createdAt(now)
+                .build();
+    }
+}
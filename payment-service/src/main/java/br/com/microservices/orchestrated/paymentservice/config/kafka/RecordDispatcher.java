@@ -0,0 +1,136 @@
+package br.com.microservices.orchestrated.paymentservice.config.kafka;
+
+import io.micrometer.context.ContextSnapshotFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.BackOffExecution;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the work of each record a record listener receives. In platform thread mode the work runs on
+ * the consumer thread and a failure goes to the container's error handler, so to the retry topics.
+ * In virtual thread mode each record runs on its own virtual thread and the listener returns at once,
+ * so a consumer is no longer limited to one record at a time and the DatabaseBulkhead inside the work
+ * becomes the real bound. Records sharing a key still run one after the other, in offset order.
+ * <p>
+ * A record is acknowledged once its work completes. The container uses async acks in that mode, so it
+ * commits acknowledged offsets in order and pauses the consumer until the whole poll is done. A failure
+ * on a virtual thread cannot reach the error handler, so it is retried there with the retry backoff and
+ * then sent to the dead letter topic.
+ */
+@Slf4j
+public class RecordDispatcher implements AutoCloseable {
+
+    private static final long RECOVER_INTERVAL_MILLIS = 1_000;
+    private static final ContextSnapshotFactory CONTEXT_SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+    private final ExecutorService executor;
+    private final BackOff retryBackOff;
+    private final DeadLetterRecoverer deadLetterRecoverer;
+    private final Map<Object, CompletableFuture<Void>> lastByKey = new HashMap<>();
+
+    public RecordDispatcher(boolean virtualThreads, String threadName, BackOff retryBackOff,
+                            DeadLetterRecoverer deadLetterRecoverer) {
+
+        this.executor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadName + "-", 0).factory())
+                : null;
+        this.retryBackOff = retryBackOff;
+        this.deadLetterRecoverer = deadLetterRecoverer;
+    }
+
+    @SuppressWarnings("try")
+    public void dispatch(ConsumerRecord<?, ?> record, Acknowledgment acknowledgment, Runnable work) {
+
+        if (this.executor == null) {
+            work.run();
+            acknowledgment.acknowledge();
+            return;
+        }
+
+        // The trace in scope on the consumer thread goes along, so the work's spans stay in the saga.
+        var snapshot = CONTEXT_SNAPSHOTS.captureAll();
+        var key = record.key() == null ? record : record.key();
+
+        synchronized (this.lastByKey) {
+            var previous = this.lastByKey.getOrDefault(key, CompletableFuture.completedFuture(null));
+            CompletableFuture<Void> current = previous.handleAsync((ignored, e) -> {
+                try (var scope = snapshot.setThreadLocals()) {
+                    if (this.process(record, work))
+                        acknowledgment.acknowledge();
+                }
+                return null;
+            }, this.executor);
+
+            this.lastByKey.put(key, current);
+            current.whenComplete((ignored, e) -> this.forget(key, current));
+        }
+    }
+
+    /**
+     * Returns false when interrupted by the shutdown, the record is then left unacknowledged and comes
+     * back to whichever consumer gets its partition next.
+     */
+    private boolean process(ConsumerRecord<?, ?> record, Runnable work) {
+
+        var backOff = this.retryBackOff.start();
+        try {
+            while (true) {
+                try {
+                    work.run();
+                    return true;
+                } catch (Exception e) {
+                    var interval = backOff.nextBackOff();
+                    if (interval == BackOffExecution.STOP) {
+                        this.recover(record, e);
+                        return true;
+                    }
+                    log.warn("Error processing record {}-{}@{}, retrying in {} ms",
+                            record.topic(), record.partition(), record.offset(), interval, e);
+                    Thread.sleep(interval);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Keeps trying to publish to the dead letter topic, as the offset cannot be committed before.
+     */
+    private void recover(ConsumerRecord<?, ?> record, Exception cause) throws InterruptedException {
+
+        while (true) {
+            try {
+                this.deadLetterRecoverer.accept(record, cause);
+                return;
+            } catch (Exception e) {
+                log.error("Error sending record {}-{}@{} to its dead letter topic",
+                        record.topic(), record.partition(), record.offset(), e);
+                Thread.sleep(RECOVER_INTERVAL_MILLIS);
+            }
+        }
+    }
+
+    private void forget(Object key, CompletableFuture<Void> current) {
+
+        synchronized (this.lastByKey) {
+            this.lastByKey.remove(key, current);
+        }
+    }
+
+    @Override
+    public void close() {
+
+        if (this.executor != null)
+            this.executor.shutdownNow();
+    }
+}
@@ -1,29 +1,70 @@
 package br.com.microservices.orchestrated.paymentservice.core.consumer;
 
+import br.com.microservices.orchestrated.paymentservice.config.kafka.RecordDispatcher;
+import br.com.microservices.orchestrated.paymentservice.core.dto.Event;
 import br.com.microservices.orchestrated.paymentservice.core.service.PaymentService;
-import br.com.microservices.orchestrated.paymentservice.core.utils.JsonUtil;
+import br.com.microservices.orchestrated.paymentservice.core.utils.DatabaseBulkhead;
+import br.com.microservices.orchestrated.paymentservice.core.utils.SagaLog;
+import br.com.microservices.orchestrated.paymentservice.core.utils.SagaMetrics;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.core.log.LogAccessor;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ListenerUtils;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.kafka.support.serializer.SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER;
+
 @Slf4j
 @Component
 @AllArgsConstructor
 public class PaymentConsumer {
 
-    private final JsonUtil jsonUtil;
+    private static final LogAccessor LOGGER = new LogAccessor(PaymentConsumer.class);
+
     private final PaymentService paymentService;
+    private final SagaMetrics sagaMetrics;
+    private final SagaLog sagaLog;
+    private final DatabaseBulkhead databaseBulkhead;
+    private final RecordDispatcher recordDispatcher;
 
     @KafkaListener(
             groupId = "${spring.kafka.consumer.group-id}",
-            topics = "${spring.kafka.topic.payment-success}"
+            topics = "${spring.kafka.topic.payment-success}",
+            containerFactory = "batchListenerContainerFactory"
     )
 
-    public void consumeSuccessEvent(String payload) {
-        log.info("Receiving success event {} from payment-success topic", payload);
-        var event = jsonUtil.toEvent(payload);
-        this.paymentService.realizePayment(event);
+    public void consumeSuccessEvents(List<ConsumerRecord<String, Event>> records) {
+        log.info("Receiving {} success events from payment-success topic", records.size());
+        var events = new ArrayList<Event>(records.size());
+        var batchSize = 0;
+
+        for (var record : records) {
+            if (record.value() == null)
+                break;
+            this.sagaMetrics.recordQueueDelay(record);
+            events.add(record.value());
+            batchSize += record.serializedValueSize();
+        }
+
+        // The whole batch is one processing sample, as the events share the transaction.
+        if (!events.isEmpty())
+            this.sagaMetrics.timeStep(records.get(0).topic(), null, batchSize,
+                    () -> this.databaseBulkhead.run(() -> this.paymentService.realizePayments(events)));
+
+        // The events before an undecodable record are done, the error handler commits them and sends
+        // that record to the dead letter topic.
+        if (events.size() < records.size()) {
+            var failed = records.get(events.size());
+            var cause = ListenerUtils.getExceptionFromHeader(failed, VALUE_DESERIALIZER_EXCEPTION_HEADER, LOGGER);
+            throw new BatchListenerFailedException("Could not decode event", cause, events.size());
+        }
     }
 
     @KafkaListener(
@@ -31,9 +72,12 @@ public class PaymentConsumer {
             topics = "${spring.kafka.topic.payment-fail}"
     )
 
-    public void consumeFailEvent(String payload) {
-        log.info("Receiving rollback event {} from payment-fail topic", payload);
-        var event = jsonUtil.toEvent(payload);
-        this.paymentService.realizeRefund(event);
+    public void consumeFailEvent(ConsumerRecord<String, Event> record, Acknowledgment acknowledgment) {
+        var event = record.value();
+        if (this.sagaLog.isSampled(event.getOrderId(), event.getStatus()))
+            log.info("Receiving rollback event {} from payment-fail topic", this.sagaLog.payload(event));
+        this.sagaMetrics.recordQueueDelay(record);
+        this.recordDispatcher.dispatch(record, acknowledgment, () -> this.sagaMetrics.timeStep(record.topic(), event.getOrderId(),
+                record.serializedValueSize(), () -> this.databaseBulkhead.run(() -> this.paymentService.realizeRefund(event))));
     }
 }
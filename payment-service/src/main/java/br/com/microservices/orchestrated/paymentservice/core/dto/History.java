@@ -18,4 +18,5 @@ public class History {
     private ESagaStatus status;
     private String message;
     private LocalDateTime createdAt;
+    private int sequence;
 }
@@ -0,0 +1,12 @@
+package br.com.microservices.orchestrated.paymentservice.core.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("saga.Step")
+@Label("Saga Step")
+@Description("Business processing of a consumed saga event")
+public class StepEvent extends SagaEvent {
+
+}
@@ -14,11 +14,16 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "payment")
+@Table(name = "payment", uniqueConstraints = @UniqueConstraint(
+        name = "uk_payment_order_transaction",
+        columnNames = {"order_id", "transaction_id"}
+))
 public class Payment {
 
+    // Payments are inserted with nextval('payment_seq'), so Hibernate must not pool ids from the same sequence.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_seq")
+    @SequenceGenerator(name = "payment_seq", sequenceName = "payment_seq", allocationSize = 1)
     private Integer id;
 
     @Column(nullable = false)
@@ -48,7 +53,8 @@ public class Payment {
         var now = LocalDateTime.now();
         createdAt = now;
         updatedAt = now;
-        this.paymentStatus = EPaymentsStatus.PENDING;
+        if (paymentStatus == null)
+            paymentStatus = EPaymentsStatus.PENDING;
     }
 
     @PreUpdate
@@ -1,28 +1,99 @@
 package br.com.microservices.orchestrated.paymentservice.core.producer;
 
+import br.com.microservices.orchestrated.paymentservice.config.kafka.DeadLetterRecoverer;
+import br.com.microservices.orchestrated.paymentservice.config.tracing.OutboxTracing;
+import br.com.microservices.orchestrated.paymentservice.core.enums.ESagaHeader;
+import br.com.microservices.orchestrated.paymentservice.core.model.Outbox;
+import br.com.microservices.orchestrated.paymentservice.core.utils.SagaMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.util.ObjectUtils.isEmpty;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class KafkaProducer {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final SagaMetrics sagaMetrics;
+    private final OutboxTracing outboxTracing;
+    private final SendWindow sendWindow;
+
+    /**
+     * Sends the whole batch before flushing, so the records share producer batches instead of
+     * waiting on each other.
+     */
+    public List<CompletableFuture<SendResult<String, byte[]>>> sendOutbox(List<Outbox> batch) {
+
+        var sends = batch
+                .stream()
+                .map(this::sendEvent)
+                .toList();
 
-    @Value(value = "spring.kafka.topic.orchestrator")
-    private String orchestratorTopic;
+        kafkaTemplate.flush();
+        return sends;
+    }
+
+    /**
+     * Sends within the trace of the hop that wrote the row, the producer span and the trace headers
+     * then follow from it.
+     */
+    @SuppressWarnings("try")
+    private CompletableFuture<SendResult<String, byte[]>> sendEvent(Outbox outbox) {
 
-    public void sendEvent(String payload) {
+        var span = outboxTracing.continueTrace(outbox);
 
-        try {
-            log.info("Sending event to topic {} with data {}", orchestratorTopic, payload);
-            kafkaTemplate.send(orchestratorTopic, payload);
+        try (var ignored = outboxTracing.withSpan(span)) {
+            log.info("Sending event {} to topic {}", outbox.getEventId(), outbox.getTopic());
+            return sendWindow.send(outbox.getPayload().length,
+                    () -> sagaMetrics.timeSend(outbox.getTopic(), outbox.getOrderId(), () -> kafkaTemplate.send(this.createRecord(outbox))));
         } catch (Exception e) {
-            log.error("Error trying to send data to topic {} with data {}", orchestratorTopic, payload, e);
+            log.error("Error trying to send event {} to topic {}", outbox.getEventId(), outbox.getTopic(), e);
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            if (span != null)
+                span.end();
         }
     }
+
+    /**
+     * Sends the row to the dead letter topic of its destination, for rows the broker will not accept.
+     */
+    public CompletableFuture<SendResult<String, byte[]>> sendToDeadLetter(Outbox outbox, Throwable cause) {
+
+        var deadLetter = DeadLetterRecoverer.toDeadLetter(this.createRecord(outbox), cause);
+        log.info("Sending event {} to dead letter topic {}", outbox.getEventId(), deadLetter.topic());
+        return kafkaTemplate
+                .send(deadLetter)
+                .whenComplete((result, e) -> {
+                    if (e == null)
+                        sagaMetrics.recordDeadLetter(deadLetter.topic());
+                });
+    }
+
+    private ProducerRecord<String, byte[]> createRecord(Outbox outbox) {
+
+        var record = new ProducerRecord<>(outbox.getTopic(), outbox.getOrderId(), outbox.getPayload());
+        this.addHeader(record, ESagaHeader.EVENT_ID, outbox.getEventId());
+        this.addHeader(record, ESagaHeader.ORDER_ID, outbox.getOrderId());
+        this.addHeader(record, ESagaHeader.TRANSACTION_ID, outbox.getTransactionId());
+        this.addHeader(record, ESagaHeader.SOURCE, outbox.getSource());
+        this.addHeader(record, ESagaHeader.STATUS, outbox.getStatus());
+        return record;
+    }
+
+    private void addHeader(ProducerRecord<String, byte[]> record, ESagaHeader header, String value) {
+
+        if (!isEmpty(value))
+            record.headers().add(header.getHeader(), value.getBytes(UTF_8));
+    }
 }
@@ -0,0 +1,14 @@
+package br.com.microservices.orchestrated.paymentservice.core.repository;
+
+import br.com.microservices.orchestrated.paymentservice.core.model.Payment;
+
+import java.util.List;
+
+public interface PaymentInsertRepository {
+
+    /**
+     * Inserts the payments in a single statement, skipping the ones already made for the same order
+     * and transaction. Returns only the payments actually inserted, with their ids.
+     */
+    List<Payment> insertIfAbsent(List<Payment> payments);
+}
@@ -0,0 +1,59 @@
+package br.com.microservices.orchestrated.paymentservice.core.repository;
+
+import br.com.microservices.orchestrated.paymentservice.core.model.Payment;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Function;
+
+@RequiredArgsConstructor
+public class PaymentInsertRepositoryImpl implements PaymentInsertRepository {
+
+    private static final String INSERT_IF_ABSENT = """
+            INSERT INTO payment (id, order_id, transaction_id, total_items, total_amount, payment_status, created_at, updated_at)
+            SELECT nextval('payment_seq'), *
+            FROM unnest(?::varchar[], ?::varchar[], ?::int4[], ?::float8[], ?::varchar[], ?::timestamp[], ?::timestamp[])
+            ON CONFLICT (order_id, transaction_id) DO NOTHING
+            RETURNING id, order_id, transaction_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Payment> insertIfAbsent(List<Payment> payments) {
+
+        if (payments.isEmpty())
+            return List.of();
+
+        // The same order and transaction twice in one statement is inserted once, for the first payment.
+        var paymentsByKey = new HashMap<String, Payment>();
+        payments.forEach(payment -> paymentsByKey.putIfAbsent(paymentKey(payment.getOrderId(), payment.getTransactionId()), payment));
+
+        return this.jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(INSERT_IF_ABSENT);
+            statement.setArray(1, connection.createArrayOf("varchar", toArray(payments, Payment::getOrderId)));
+            statement.setArray(2, connection.createArrayOf("varchar", toArray(payments, Payment::getTransactionId)));
+            statement.setArray(3, connection.createArrayOf("int4", toArray(payments, Payment::getTotalItems)));
+            statement.setArray(4, connection.createArrayOf("float8", toArray(payments, Payment::getTotalAmount)));
+            statement.setArray(5, connection.createArrayOf("varchar", toArray(payments, payment -> payment.getPaymentStatus().name())));
+            statement.setArray(6, connection.createArrayOf("timestamp", toArray(payments, payment -> Timestamp.valueOf(payment.getCreatedAt()))));
+            statement.setArray(7, connection.createArrayOf("timestamp", toArray(payments, payment -> Timestamp.valueOf(payment.getUpdatedAt()))));
+            return statement;
+        }, (resultSet, rowNum) -> {
+            var payment = paymentsByKey.get(paymentKey(resultSet.getString("order_id"), resultSet.getString("transaction_id")));
+            payment.setId(resultSet.getInt("id"));
+            return payment;
+        });
+    }
+
+    private static Object[] toArray(List<Payment> payments, Function<Payment, Object> column) {
+        return payments.stream().map(column).toArray();
+    }
+
+    private static String paymentKey(String orderId, String transactionId) {
+        return orderId + ":" + transactionId;
+    }
+}
@@ -5,8 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
 
-public interface PaymentRepository extends JpaRepository<Payment, Integer> {
+public interface PaymentRepository extends JpaRepository<Payment, Integer>, PaymentInsertRepository {
 
-    Boolean existsByOrderIdAndTransactionId(String orderId, String transactionId);
     Optional<Payment> findByOrderIdAndTransactionId(String orderId, String transactionId);
 }
@@ -7,14 +7,20 @@ import br.com.microservices.orchestrated.paymentservice.core.dto.OrderProducts;
 import br.com.microservices.orchestrated.paymentservice.core.enums.EPaymentsStatus;
 import br.com.microservices.orchestrated.paymentservice.core.enums.ESagaStatus;
 import br.com.microservices.orchestrated.paymentservice.core.model.Payment;
-import br.com.microservices.orchestrated.paymentservice.core.producer.KafkaProducer;
 import br.com.microservices.orchestrated.paymentservice.core.repository.PaymentRepository;
-import br.com.microservices.orchestrated.paymentservice.core.utils.JsonUtil;
+import br.com.microservices.orchestrated.paymentservice.core.utils.IdempotencyCache;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -26,27 +32,52 @@ public class PaymentService {
     private static final Double MIN_AMOUNT_VALUE = 0.1;
 
 
-    private final JsonUtil jsonUtil;
-    private final KafkaProducer kafkaProducer;
+    private final OutboxService outboxService;
     private final PaymentRepository paymentRepository;
+    private final IdempotencyCache idempotencyCache;
+
+    /**
+     * Handles a whole poll in one transaction. The payments are created with their final status by a
+     * single insert that skips the ones already made, the outbox rows follow in a JDBC batch.
+     */
+    @Transactional
+    public void realizePayments(List<Event> events) {
+
+        var payments = new ArrayList<Payment>(events.size());
+        for (var event : events) {
+            try {
+                this.checkAlreadyProcessed(event);
+                payments.add(this.createPayment(event));
+            } catch (Exception e) {
+                log.error("Error trying to make payment", e);
+                this.handleFailCurrentNotExecute(event, e.getMessage());
+                payments.add(null);
+            }
+        }
 
-    public void realizePayment(Event event) {
-
-        try {
-            this.checkCurrentValidation(event);
-            this.createPendingPayment(event);
-            var payment = this.findByOrderIdAndTransactionId(event);
-            this.validateAmount(payment.getTotalAmount());
-            this.changePaymentToSuccess(payment);
-            this.handleSuccess(event);
-        } catch (Exception e) {
-            log.error("Error trying to make payment", e);
-            this.handleFailCurrentNotExecute(event, e.getMessage());
+        var createdPayments = this.insertIfAbsent(payments);
+
+        for (var i = 0; i < events.size(); i++) {
+            var event = events.get(i);
+            var payment = payments.get(i);
+            if (payment == null)
+                continue;
+
+            try {
+                this.checkCurrentValidation(payment, createdPayments);
+                idempotencyCache.record(payment.getOrderId(), payment.getTransactionId(), CURRENT_SOURCE);
+                this.validateAmount(payment.getTotalAmount());
+                this.handleSuccess(event);
+            } catch (Exception e) {
+                log.error("Error trying to make payment", e);
+                this.handleFailCurrentNotExecute(event, e.getMessage());
+            }
         }
 
-        kafkaProducer.sendEvent(this.jsonUtil.toJson(event));
+        events.forEach(outboxService::enqueue);
     }
 
+    @Transactional
     public void realizeRefund(Event event) {
 
         event.setStatus(ESagaStatus.FAIL);
@@ -60,13 +91,18 @@ public class PaymentService {
         } catch (Exception e) {
             addHistory(event, "Rollback not executed for payment!");
         }
-        kafkaProducer.sendEvent(jsonUtil.toJson(event));
+        outboxService.enqueue(event);
     }
 
-    private void createPendingPayment(Event event) {
+    /**
+     * The status is final before the insert: payments under the minimum amount stay pending, as they
+     * did when the amount was validated after inserting.
+     */
+    private Payment createPayment(Event event) {
 
         var totalAmount = this.calculateAmount(event);
         var totalItems = this.calculateTotalItems(event);
+        var now = LocalDateTime.now();
 
         var payment = Payment
                 .builder()
@@ -74,15 +110,34 @@ public class PaymentService {
                 .transactionId(event.getTransactionId())
                 .totalAmount(totalAmount)
                 .totalItems(totalItems)
+                .paymentStatus(totalAmount < MIN_AMOUNT_VALUE ? EPaymentsStatus.PENDING : EPaymentsStatus.SUCCESS)
+                .createdAt(now)
+                .updatedAt(now)
                 .build();
 
-        this.save(payment);
         this.setEventAmountItems(event, payment);
+        return payment;
+    }
+
+    private Set<Payment> insertIfAbsent(List<Payment> payments) {
+
+        var createdPayments = Collections.newSetFromMap(new IdentityHashMap<Payment, Boolean>());
+        createdPayments.addAll(this.paymentRepository.insertIfAbsent(payments.stream().filter(Objects::nonNull).toList()));
+        return createdPayments;
     }
 
-    private void checkCurrentValidation(Event event) {
+    /**
+     * Rejects recent duplicates without touching the database, the others are caught by the insert.
+     */
+    private void checkAlreadyProcessed(Event event) {
 
-        if (paymentRepository.existsByOrderIdAndTransactionId(event.getPayload().getId(), event.getPayload().getTransactionId()))
+        if (idempotencyCache.contains(event.getPayload().getId(), event.getTransactionId(), CURRENT_SOURCE))
+            throw new ValidationException("There's another transactionID for this validation.");
+    }
+
+    private void checkCurrentValidation(Payment payment, Set<Payment> createdPayments) {
+
+        if (!createdPayments.contains(payment))
             throw new ValidationException("There's another transactionID for this validation.");
     }
 
@@ -116,12 +171,6 @@ public class PaymentService {
             throw new ValidationException("The minimum amount available is ".concat(MIN_AMOUNT_VALUE.toString()));
     }
 
-    private void changePaymentToSuccess(Payment payment) {
-
-        payment.setPaymentStatus(EPaymentsStatus.SUCCESS);
-        this.save(payment);
-    }
-
     private void handleSuccess(Event event) {
 
         event.setStatus(ESagaStatus.SUCCESS);
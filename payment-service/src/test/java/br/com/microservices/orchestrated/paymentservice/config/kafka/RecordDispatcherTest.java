@@ -0,0 +1,157 @@
+package br.com.microservices.orchestrated.paymentservice.config.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.*;
+
+class RecordDispatcherTest {
+
+    private static final String TOPIC = "payment-fail";
+
+    private final DeadLetterRecoverer deadLetterRecoverer = mock(DeadLetterRecoverer.class);
+    private RecordDispatcher dispatcher;
+
+    @AfterEach
+    void close() {
+        this.dispatcher.close();
+    }
+
+    @Test
+    void platformModeRunsTheWorkOnTheConsumerThreadBeforeAcknowledging() {
+
+        this.dispatcher = this.dispatcher(false);
+        var acknowledgment = mock(Acknowledgment.class);
+        var threads = new ArrayList<Thread>();
+
+        this.dispatcher.dispatch(record("o-1", 0), acknowledgment, () -> {
+            threads.add(Thread.currentThread());
+            verifyNoInteractions(acknowledgment);
+        });
+
+        assertThat(threads).containsExactly(Thread.currentThread());
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void platformModeLeavesFailuresToTheContainer() {
+
+        this.dispatcher = this.dispatcher(false);
+        var acknowledgment = mock(Acknowledgment.class);
+
+        assertThatThrownBy(() -> this.dispatcher.dispatch(record("o-1", 0), acknowledgment, () -> {
+            throw new IllegalStateException("database down");
+        })).hasMessage("database down");
+
+        verifyNoInteractions(acknowledgment, this.deadLetterRecoverer);
+    }
+
+    @Test
+    void virtualModeReturnsAtOnceAndAcknowledgesOnceTheWorkCompletes() throws InterruptedException {
+
+        this.dispatcher = this.dispatcher(true);
+        var acknowledgment = mock(Acknowledgment.class);
+        var release = new CountDownLatch(1);
+        var virtual = new AtomicInteger();
+
+        this.dispatcher.dispatch(record("o-1", 0), acknowledgment, () -> {
+            virtual.set(Thread.currentThread().isVirtual() ? 1 : -1);
+            await(release);
+        });
+
+        verify(acknowledgment, after(100).never()).acknowledge();
+        release.countDown();
+        verify(acknowledgment, timeout(1_000)).acknowledge();
+        assertThat(virtual).hasValue(1);
+    }
+
+    @Test
+    void virtualModeRunsRecordsOfTheSameKeyInOffsetOrderAndOtherKeysAlongside() throws InterruptedException {
+
+        this.dispatcher = this.dispatcher(true);
+        var acknowledgment = mock(Acknowledgment.class);
+        var firstStarted = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var order = Collections.synchronizedList(new ArrayList<String>());
+
+        this.dispatcher.dispatch(record("o-1", 0), acknowledgment, () -> {
+            firstStarted.countDown();
+            await(release);
+            order.add("o-1@0");
+        });
+        this.dispatcher.dispatch(record("o-1", 1), acknowledgment, () -> order.add("o-1@1"));
+        this.dispatcher.dispatch(record("o-2", 2), acknowledgment, () -> order.add("o-2@2"));
+
+        assertThat(firstStarted.await(1, TimeUnit.SECONDS)).isTrue();
+        verify(acknowledgment, timeout(1_000)).acknowledge();
+        assertThat(order).containsExactly("o-2@2");
+
+        release.countDown();
+        verify(acknowledgment, timeout(1_000).times(3)).acknowledge();
+        assertThat(order).containsExactly("o-2@2", "o-1@0", "o-1@1");
+    }
+
+    @Test
+    void virtualModeRetriesAFailedRecordThenSendsItToTheDeadLetterTopic() {
+
+        this.dispatcher = this.dispatcher(true);
+        var acknowledgment = mock(Acknowledgment.class);
+        var record = record("o-1", 0);
+        var attempts = new AtomicInteger();
+        var failure = new IllegalStateException("database down");
+
+        this.dispatcher.dispatch(record, acknowledgment, () -> {
+            attempts.incrementAndGet();
+            throw failure;
+        });
+
+        verify(acknowledgment, timeout(1_000)).acknowledge();
+        assertThat(attempts).hasValue(3);
+        verify(this.deadLetterRecoverer).accept(same(record), same(failure));
+    }
+
+    @Test
+    void virtualModeKeepsARecordUnacknowledgedUntilItReachesTheDeadLetterTopic() {
+
+        this.dispatcher = this.dispatcher(true);
+        var acknowledgment = mock(Acknowledgment.class);
+        doThrow(new IllegalStateException("broker down")).when(this.deadLetterRecoverer).accept(any(), any());
+
+        this.dispatcher.dispatch(record("o-1", 0), acknowledgment, () -> {
+            throw new IllegalStateException("database down");
+        });
+
+        verify(this.deadLetterRecoverer, timeout(1_000)).accept(any(), any());
+        verify(acknowledgment, after(200).never()).acknowledge();
+    }
+
+    private RecordDispatcher dispatcher(boolean virtualThreads) {
+        return new RecordDispatcher(virtualThreads, "payment-group", new FixedBackOff(1, 2), this.deadLetterRecoverer);
+    }
+
+    private static ConsumerRecord<String, String> record(String key, long offset) {
+        return new ConsumerRecord<>(TOPIC, 0, offset, key, "event");
+    }
+
+    private static void await(CountDownLatch latch) {
+
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
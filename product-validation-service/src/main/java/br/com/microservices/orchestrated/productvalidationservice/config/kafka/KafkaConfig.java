@@ -1,29 +1,47 @@
 package br.com.microservices.orchestrated.productvalidationservice.config.kafka;
 
+import br.com.microservices.orchestrated.productvalidationservice.core.dto.Event;
+import br.com.microservices.orchestrated.productvalidationservice.core.enums.EProducerProfile;
+import br.com.microservices.orchestrated.productvalidationservice.core.utils.EventCodec;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.retrytopic.DeadLetterPublishingRecovererFactory;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationSupport;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @EnableKafka
 @Configuration
 @RequiredArgsConstructor
-public class KafkaConfig {
+public class KafkaConfig extends RetryTopicConfigurationSupport {
 
-    private static final Integer PARTITION_COUNT = 1;
     private static final Integer REPLICA_COUNT = 1;
 
+    private final EventCodec eventCodec;
+    private final MeterRegistry meterRegistry;
+
     @Value(value = "${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
@@ -33,6 +51,30 @@ public class KafkaConfig {
     @Value(value = "${spring.kafka.consumer.auto-offset-reset}")
     private String autoOffsetReset;
 
+    @Value(value = "${spring.kafka.producer-profile}")
+    private EProducerProfile producerProfile;
+
+    @Value(value = "${spring.kafka.partitions}")
+    private Integer partitionCount;
+
+    @Value(value = "${spring.kafka.listener.concurrency}")
+    private Integer listenerConcurrency;
+
+    @Value(value = "${spring.threads.virtual.enabled}")
+    private boolean virtualThreads;
+
+    @Value(value = "${spring.kafka.retry.attempts}")
+    private Integer retryAttempts;
+
+    @Value(value = "${spring.kafka.retry.initial-interval-millis}")
+    private Long retryInitialIntervalMillis;
+
+    @Value(value = "${spring.kafka.retry.multiplier}")
+    private Double retryMultiplier;
+
+    @Value(value = "${spring.kafka.retry.max-interval-millis}")
+    private Long retryMaxIntervalMillis;
+
     @Value(value = "${spring.kafka.topic.orchestrator}")
     private String orchestratorTopic;
 
@@ -43,9 +85,13 @@ public class KafkaConfig {
     private String productValidationFailTopic;
 
     @Bean
-    public ConsumerFactory<String, String> consumerFactory() {
+    public ConsumerFactory<String, Event> consumerFactory() {
 
-        return new DefaultKafkaConsumerFactory<>(this.consumerProps());
+        return new DefaultKafkaConsumerFactory<>(
+                this.consumerProps(),
+                new ErrorHandlingDeserializer<>(new StringDeserializer()),
+                new ErrorHandlingDeserializer<>(new EventDeserializer(this.eventCodec))
+        );
     }
 
     private Map<String, Object> consumerProps() {
@@ -54,15 +100,75 @@ public class KafkaConfig {
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, this.bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, this.groupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, this.autoOffsetReset);
         return props;
     }
 
+    /**
+     * Listeners acknowledge through the {@link RecordDispatcher}. In virtual thread mode the acks come
+     * from the record threads, out of order, and the container commits them as gaps close.
+     */
     @Bean
-    public ProducerFactory<String, String> producerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, Event> kafkaListenerContainerFactory() {
+
+        var factory = new ConcurrentKafkaListenerContainerFactory<String, Event>();
+        factory.setConsumerFactory(this.consumerFactory());
+        factory.setConcurrency(this.listenerConcurrency);
+        factory.getContainerProperties().setObservationEnabled(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(this.virtualThreads);
+        return factory;
+    }
+
+    @Bean
+    public RecordDispatcher recordDispatcher() {
+
+        return new RecordDispatcher(this.virtualThreads, this.groupId, this.retryBackOff(),
+                new DeadLetterRecoverer(this.retryKafkaTemplate(), this.meterRegistry));
+    }
+
+    private ExponentialBackOffWithMaxRetries retryBackOff() {
 
-        return new DefaultKafkaProducerFactory<>(this.producerProps());
+        var backOff = new ExponentialBackOffWithMaxRetries(this.retryAttempts - 1);
+        backOff.setInitialInterval(this.retryInitialIntervalMillis);
+        backOff.setMultiplier(this.retryMultiplier);
+        backOff.setMaxInterval(this.retryMaxIntervalMillis);
+        return backOff;
+    }
+
+    /**
+     * Failed records move through retry topics with an exponential delay and end in the dead letter
+     * topic of the listener's topic, so they never hold back the main partition. Records that cannot be
+     * decoded go straight to the dead letter topic.
+     */
+    @Bean
+    public RetryTopicConfiguration retryTopicConfiguration() {
+
+        return RetryTopicConfigurationBuilder
+                .newInstance()
+                .maxAttempts(this.retryAttempts)
+                .exponentialBackoff(this.retryInitialIntervalMillis, this.retryMultiplier, this.retryMaxIntervalMillis)
+                .retryTopicSuffix(DeadLetterRecoverer.RETRY_SUFFIX)
+                .dltSuffix(DeadLetterRecoverer.DLT_SUFFIX)
+                .suffixTopicsWithIndexValues()
+                .doNotRetryOnDltFailure()
+                .autoCreateTopicsWith(this.partitionCount, REPLICA_COUNT.shortValue())
+                .create(this.retryKafkaTemplate());
+    }
+
+    @Override
+    protected Consumer<DeadLetterPublishingRecovererFactory> configureDeadLetterPublishingContainerFactory() {
+
+        return factory -> factory.setDeadLetterPublisherCreator((templateResolver, destinationResolver) ->
+                new DeadLetterRecoverer(templateResolver, destinationResolver, this.meterRegistry));
+    }
+
+    @Bean
+    public ProducerFactory<String, byte[]> producerFactory() {
+
+        var factory = new DefaultKafkaProducerFactory<>(this.producerProps(), new StringSerializer(), new ByteArraySerializer());
+        factory.addListener(new MicrometerProducerListener<>(this.meterRegistry));
+        return factory;
     }
 
     private Map<String, Object> producerProps() {
@@ -70,21 +176,44 @@ public class KafkaConfig {
         var props = new HashMap<String, Object>();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, this.bootstrapServers);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        this.producerProfile.applyTo(props);
         return props;
     }
 
     @Bean
-    public KafkaTemplate<String, String> kafkaTemplate() {
+    public KafkaTemplate<String, byte[]> kafkaTemplate() {
         
-        return new KafkaTemplate<>(producerFactory());
+        var template = new KafkaTemplate<>(producerFactory());
+        template.setObservationEnabled(true);
+        return template;
+    }
+
+    /**
+     * Republishes consumed records, which are decoded events or, when decoding failed, the raw bytes.
+     */
+    @Bean
+    public ProducerFactory<String, Object> retryProducerFactory() {
+
+        var valueSerializer = new DelegatingByTypeSerializer(Map.of(
+                byte[].class, new ByteArraySerializer(),
+                Event.class, (Serializer<Event>) (topic, event) -> this.eventCodec.encode(event)
+        ));
+        return new DefaultKafkaProducerFactory<>(this.producerProps(), new StringSerializer(), valueSerializer);
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> retryKafkaTemplate() {
+
+        var template = new KafkaTemplate<>(retryProducerFactory());
+        template.setObservationEnabled(true);
+        return template;
     }
 
     private NewTopic buildTopic(String name) {
         return TopicBuilder
                 .name(name)
                 .replicas(REPLICA_COUNT)
-                .partitions(PARTITION_COUNT)
+                .partitions(this.partitionCount)
                 .build();
     }
 
@@ -0,0 +1,20 @@
+package br.com.microservices.orchestrated.productvalidationservice.config.tracing;
+
+import io.opentelemetry.exporter.logging.otlp.OtlpJsonLoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Logs every exported batch as OTLP JSON, one resource per line. logback-spring.xml routes the
+     * exporter's logger to the span file, so traces can be inspected without a running backend.
+     */
+    @Bean
+    public SpanExporter otlpJsonLoggingSpanExporter() {
+
+        return OtlpJsonLoggingSpanExporter.create();
+    }
+}
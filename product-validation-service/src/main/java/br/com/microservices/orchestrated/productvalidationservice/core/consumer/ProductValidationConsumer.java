@@ -1,10 +1,16 @@
 package br.com.microservices.orchestrated.productvalidationservice.core.consumer;
 
+import br.com.microservices.orchestrated.productvalidationservice.config.kafka.RecordDispatcher;
+import br.com.microservices.orchestrated.productvalidationservice.core.dto.Event;
 import br.com.microservices.orchestrated.productvalidationservice.core.service.ProductValidationService;
-import br.com.microservices.orchestrated.productvalidationservice.core.utils.JsonUtil;
+import br.com.microservices.orchestrated.productvalidationservice.core.utils.DatabaseBulkhead;
+import br.com.microservices.orchestrated.productvalidationservice.core.utils.SagaLog;
+import br.com.microservices.orchestrated.productvalidationservice.core.utils.SagaMetrics;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
 @Slf4j
@@ -12,18 +18,24 @@ import org.springframework.stereotype.Component;
 @AllArgsConstructor
 public class ProductValidationConsumer {
 
-    private final JsonUtil jsonUtil;
     private final ProductValidationService productValidationService;
+    private final SagaMetrics sagaMetrics;
+    private final SagaLog sagaLog;
+    private final DatabaseBulkhead databaseBulkhead;
+    private final RecordDispatcher recordDispatcher;
 
     @KafkaListener(
             groupId = "${spring.kafka.consumer.group-id}",
             topics = "${spring.kafka.topic.product-validation-success}"
     )
 
-    public void consumeSuccessEvent(String payload) {
-        log.info("Receiving success event {} from product-validation-success topic", payload);
-        var event = jsonUtil.toEvent(payload);
-        productValidationService.validateExistingProducts(event);
+    public void consumeSuccessEvent(ConsumerRecord<String, Event> record, Acknowledgment acknowledgment) {
+        var event = record.value();
+        if (this.sagaLog.isSampled(event.getOrderId(), event.getStatus()))
+            log.info("Receiving success event {} from product-validation-success topic", this.sagaLog.payload(event));
+        sagaMetrics.recordQueueDelay(record);
+        recordDispatcher.dispatch(record, acknowledgment, () -> sagaMetrics.timeStep(record.topic(), event.getOrderId(),
+                record.serializedValueSize(), () -> databaseBulkhead.run(() -> productValidationService.validateExistingProducts(event))));
     }
 
     @KafkaListener(
@@ -31,9 +43,12 @@ public class ProductValidationConsumer {
             topics = "${spring.kafka.topic.product-validation-fail}"
     )
 
-    public void consumeFailEvent(String payload) {
-        log.info("Receiving rollback event {} from product-validation-fail topic", payload);
-        var event = jsonUtil.toEvent(payload);
-        productValidationService.rollBackEvent(event);
+    public void consumeFailEvent(ConsumerRecord<String, Event> record, Acknowledgment acknowledgment) {
+        var event = record.value();
+        if (this.sagaLog.isSampled(event.getOrderId(), event.getStatus()))
+            log.info("Receiving rollback event {} from product-validation-fail topic", this.sagaLog.payload(event));
+        sagaMetrics.recordQueueDelay(record);
+        recordDispatcher.dispatch(record, acknowledgment, () -> sagaMetrics.timeStep(record.topic(), event.getOrderId(),
+                record.serializedValueSize(), () -> databaseBulkhead.run(() -> productValidationService.rollBackEvent(event))));
     }
 }
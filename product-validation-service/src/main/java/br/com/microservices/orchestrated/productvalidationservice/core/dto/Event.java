@@ -26,6 +26,7 @@ public class Event {
     private String source;
     private ESagaStatus status;
     private List<History> eventHistory;
+    private int historySequence;
     private LocalDateTime createdAt;
 
     public void addToHistory(History history) {
@@ -33,6 +34,7 @@ public class Event {
         if (isEmpty(eventHistory))
             eventHistory = new ArrayList<>();
 
+        history.setSequence(++historySequence);
         eventHistory.add(history);
     }
 }
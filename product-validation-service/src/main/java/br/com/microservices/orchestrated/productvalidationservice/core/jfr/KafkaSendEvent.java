@@ -0,0 +1,12 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("saga.KafkaSend")
+@Label("Saga Kafka Send")
+@Description("Send of a saga event until the broker acknowledges it")
+public class KafkaSendEvent extends SagaEvent {
+
+}
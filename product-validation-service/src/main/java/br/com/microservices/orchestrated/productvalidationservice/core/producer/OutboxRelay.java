@@ -0,0 +1,115 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.producer;
+
+import br.com.microservices.orchestrated.productvalidationservice.core.model.Outbox;
+import br.com.microservices.orchestrated.productvalidationservice.core.repository.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.errors.InvalidTopicException;
+import org.apache.kafka.common.errors.RecordBatchTooLargeException;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaProducerException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains the outbox in batches. A batch is locked with SKIP LOCKED, so several instances can relay
+ * at once, sent without waiting on each record and deleted once acknowledged. Rows from the first
+ * failed send on stay locked until the transaction ends and are sent again on the next run, except
+ * rows the broker rejects for good, which are moved to the dead letter topic so they do not hold back
+ * the rows behind them.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    private static final List<Class<? extends Exception>> UNDELIVERABLE_ERRORS = List.of(
+            RecordTooLargeException.class,
+            RecordBatchTooLargeException.class,
+            InvalidTopicException.class);
+
+    private final KafkaProducer kafkaProducer;
+    private final OutboxRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value(value = "${outbox.relay.batch-size}")
+    private int batchSize;
+
+    @Value(value = "${outbox.relay.send-timeout-millis}")
+    private long sendTimeoutMillis;
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-millis}")
+    public void relay() {
+
+        Integer relayed;
+        do {
+            relayed = this.transactionTemplate.execute(status -> this.relayBatch());
+        } while (relayed != null && relayed == this.batchSize);
+    }
+
+    private int relayBatch() {
+
+        var batch = this.outboxRepository.lockNextBatch(this.batchSize);
+        if (batch.isEmpty())
+            return 0;
+
+        var sends = this.kafkaProducer.sendOutbox(batch);
+        var delivered = new ArrayList<Long>(batch.size());
+
+        for (var i = 0; i < batch.size(); i++) {
+            if (!this.awaitSend(batch.get(i), sends.get(i)))
+                break;
+            delivered.add(batch.get(i).getId());
+        }
+
+        this.outboxRepository.deleteAllByIdInBatch(delivered);
+        log.info("Relayed {} of {} outbox events", delivered.size(), batch.size());
+        return delivered.size() == batch.size() ? delivered.size() : 0;
+    }
+
+    private boolean awaitSend(Outbox outbox, CompletableFuture<?> send) {
+
+        try {
+            send.get(this.sendTimeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            log.error("Error trying to relay outbox event {} to topic {}", outbox.getEventId(), outbox.getTopic(), e);
+            return isUndeliverable(e.getCause()) && this.deadLetter(outbox, e.getCause());
+        } catch (TimeoutException e) {
+            log.error("Error trying to relay outbox event {} to topic {}", outbox.getEventId(), outbox.getTopic(), e);
+            return false;
+        }
+    }
+
+    private boolean deadLetter(Outbox outbox, Throwable cause) {
+
+        try {
+            this.kafkaProducer.sendToDeadLetter(outbox, cause).get(this.sendTimeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("Error trying to dead letter outbox event {}", outbox.getEventId(), e);
+            return false;
+        }
+    }
+
+    private static boolean isUndeliverable(Throwable cause) {
+
+        var error = cause instanceof KafkaProducerException ? cause.getCause() : cause;
+        return UNDELIVERABLE_ERRORS.stream().anyMatch(type -> type.isInstance(error));
+    }
+}
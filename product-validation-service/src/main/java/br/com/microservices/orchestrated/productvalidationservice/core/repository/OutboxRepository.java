@@ -0,0 +1,14 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.repository;
+
+import br.com.microservices.orchestrated.productvalidationservice.core.model.Outbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface OutboxRepository extends JpaRepository<Outbox, Long> {
+
+    @Query(value = "SELECT * FROM outbox ORDER BY id LIMIT :batchSize FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Outbox> lockNextBatch(@Param("batchSize") int batchSize);
+}
@@ -3,7 +3,12 @@ package br.com.microservices.orchestrated.productvalidationservice.core.reposito
 import br.com.microservices.orchestrated.productvalidationservice.core.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 public interface ProductRepository extends JpaRepository<Product, Integer> {
 
-    Boolean existsByCode(String code);
+    List<Product> findAllByCodeIn(Collection<String> codes);
+    List<Product> findAllByUpdatedAtGreaterThanEqual(LocalDateTime updatedAt);
 }
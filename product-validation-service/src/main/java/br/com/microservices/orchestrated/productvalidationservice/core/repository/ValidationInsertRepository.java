@@ -0,0 +1,12 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.repository;
+
+import br.com.microservices.orchestrated.productvalidationservice.core.model.Validation;
+
+public interface ValidationInsertRepository {
+
+    /**
+     * Inserts the validation unless one was already made for the same order and transaction. Returns
+     * false when it was, waiting for a concurrent insert of the same key to commit or roll back first.
+     */
+    boolean insertIfAbsent(Validation validation);
+}
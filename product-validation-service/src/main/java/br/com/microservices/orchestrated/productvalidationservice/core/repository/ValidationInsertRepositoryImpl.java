@@ -0,0 +1,24 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.repository;
+
+import br.com.microservices.orchestrated.productvalidationservice.core.model.Validation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@RequiredArgsConstructor
+public class ValidationInsertRepositoryImpl implements ValidationInsertRepository {
+
+    private static final String INSERT_IF_ABSENT = """
+            INSERT INTO validation (order_id, transaction_id, success, created_at, updated_at)
+            VALUES (?, ?, ?, now(), now())
+            ON CONFLICT (order_id, transaction_id) DO NOTHING
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean insertIfAbsent(Validation validation) {
+
+        return this.jdbcTemplate.update(INSERT_IF_ABSENT,
+                validation.getOrderId(), validation.getTransactionId(), validation.isSuccess()) > 0;
+    }
+}
@@ -6,8 +6,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
 
-public interface ValidationRepository extends JpaRepository<Validation, Integer> {
+public interface ValidationRepository extends JpaRepository<Validation, Integer>, ValidationInsertRepository {
 
-    Boolean existsByOrderIdAndTransactionId(String orderId, String transactionId);
     Optional<Validation> findByOrderIdAndTransactionId(String orderId, String transactionId);
 }
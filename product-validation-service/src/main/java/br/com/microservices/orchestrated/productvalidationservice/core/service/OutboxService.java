@@ -0,0 +1,50 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.service;
+
+import br.com.microservices.orchestrated.productvalidationservice.config.tracing.OutboxTracing;
+import br.com.microservices.orchestrated.productvalidationservice.core.dto.Event;
+import br.com.microservices.orchestrated.productvalidationservice.core.model.Outbox;
+import br.com.microservices.orchestrated.productvalidationservice.core.repository.OutboxRepository;
+import br.com.microservices.orchestrated.productvalidationservice.core.utils.EventCodec;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.springframework.util.ObjectUtils.isEmpty;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final EventCodec eventCodec;
+    private final OutboxRepository outboxRepository;
+    private final OutboxTracing outboxTracing;
+
+    @Value(value = "${spring.kafka.topic.orchestrator}")
+    private String orchestratorTopic;
+
+    /**
+     * Must join the caller's transaction, the event is only relayed if the changes it reports commit.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Event event) {
+
+        var outbox = Outbox
+                .builder()
+                .topic(this.orchestratorTopic)
+                .orderId(event.getOrderId())
+                .eventId(event.getId())
+                .transactionId(event.getTransactionId())
+                .source(event.getSource())
+                .status(isEmpty(event.getStatus()) ? null : event.getStatus().name())
+                .traceParent(this.outboxTracing.currentTraceParent())
+                .payload(this.eventCodec.encode(event))
+                .build();
+
+        this.outboxRepository.save(outbox);
+        log.info("Event {} added to outbox for topic {}", event.getId(), this.orchestratorTopic);
+    }
+}
@@ -0,0 +1,91 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.service;
+
+import br.com.microservices.orchestrated.productvalidationservice.core.model.Product;
+import br.com.microservices.orchestrated.productvalidationservice.core.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Product codes kept in memory, so validating an order does not query the product table. The codes
+ * are an immutable set replaced as a whole on refresh, readers never lock. Refreshes only pick up
+ * products created or updated since the last one, removed products are kept until restart.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductCatalog {
+
+    private static final LocalDateTime NEVER_UPDATED = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final ProductRepository productRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(Set.of(), NEVER_UPDATED);
+
+    @PostConstruct
+    public void load() {
+
+        this.merge(this.productRepository.findAll());
+        log.info("Loaded {} products into the catalog", this.snapshot.codes().size());
+    }
+
+    @Scheduled(fixedDelayString = "${product.catalog.refresh-interval-millis}")
+    public void refresh() {
+
+        // Products updated at the watermark itself are read again, adding them twice is harmless.
+        var products = this.productRepository.findAllByUpdatedAtGreaterThanEqual(this.snapshot.version());
+        if (!products.isEmpty())
+            this.merge(products);
+    }
+
+    /**
+     * Returns the codes that do not exist. Codes missing from the catalog are looked up with a single
+     * query, in case they were created since the last refresh.
+     */
+    public Set<String> findUnknownCodes(Collection<String> codes) {
+
+        var unknown = codes
+                .stream()
+                .filter(code -> !this.snapshot.codes().contains(code))
+                .collect(Collectors.toCollection(HashSet::new));
+
+        if (unknown.isEmpty())
+            return unknown;
+
+        var products = this.productRepository.findAllByCodeIn(unknown);
+        products.forEach(product -> unknown.remove(product.getCode()));
+        this.merge(products);
+        return unknown;
+    }
+
+    private synchronized void merge(List<Product> products) {
+
+        if (products.isEmpty())
+            return;
+
+        var current = this.snapshot;
+        var codes = new HashSet<>(current.codes());
+        var version = current.version();
+
+        for (var product : products) {
+            codes.add(product.getCode());
+            if (product.getUpdatedAt() != null && product.getUpdatedAt().isAfter(version))
+                version = product.getUpdatedAt();
+        }
+
+        this.snapshot = new Snapshot(Set.copyOf(codes), version);
+    }
+
+    private record Snapshot(Set<String> codes, LocalDateTime version) {
+
+    }
+}
@@ -6,15 +6,16 @@ import br.com.microservices.orchestrated.productvalidationservice.core.dto.Histo
 import br.com.microservices.orchestrated.productvalidationservice.core.dto.OrderProducts;
 import br.com.microservices.orchestrated.productvalidationservice.core.enums.ESagaStatus;
 import br.com.microservices.orchestrated.productvalidationservice.core.model.Validation;
-import br.com.microservices.orchestrated.productvalidationservice.core.producer.KafkaProducer;
-import br.com.microservices.orchestrated.productvalidationservice.core.repository.ProductRepository;
 import br.com.microservices.orchestrated.productvalidationservice.core.repository.ValidationRepository;
-import br.com.microservices.orchestrated.productvalidationservice.core.utils.JsonUtil;
+import br.com.microservices.orchestrated.productvalidationservice.core.utils.IdempotencyCache;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.springframework.util.ObjectUtils.isEmpty;
 
@@ -25,23 +26,24 @@ public class ProductValidationService {
 
     private static final String CURRENT_SOURCE = "PRODUCT_VALIDATION_SERVICE";
 
-    private final JsonUtil jsonUtil;
-    private final KafkaProducer kafkaProducer;
-    private final ProductRepository productRepository;
+    private final OutboxService outboxService;
+    private final ProductCatalog productCatalog;
     private final ValidationRepository validationRepository;
+    private final IdempotencyCache idempotencyCache;
 
+    @Transactional
     public void validateExistingProducts(Event event) {
 
         try {
             checkCurrentValidation(event);
-            createValidation(event, true);
+            claimValidation(event);
             handleSuccess(event);
         } catch (Exception e) {
             log.error("Error trying to validate products: ", e);
             handleFailCurrentNotExecute(event, e.getMessage());
         }
 
-        kafkaProducer.sendEvent(jsonUtil.toJson(event));
+        outboxService.enqueue(event);
     }
 
     private void validateProductsInformed(Event event) {
@@ -56,14 +58,19 @@ public class ProductValidationService {
     private void checkCurrentValidation(Event event) {
 
         this.validateProductsInformed(event);
+        this.checkAlreadyProcessed(event);
 
-        if (validationRepository.existsByOrderIdAndTransactionId(event.getPayload().getId(), event.getPayload().getTransactionId()))
-            throw new ValidationException("There's another transactionID for this validation.");
+        event.getPayload().getProducts().forEach(this::validateProductInformed);
+        this.validateExistingProducts(event.getPayload().getProducts());
+    }
 
-        event.getPayload().getProducts().forEach(product -> {
-            this.validateProductInformed(product);
-            this.validateExistingProduct(product.getProduct().getCode());
-        });
+    /**
+     * Rejects recent duplicates without touching the database, the others are caught by the insert.
+     */
+    private void checkAlreadyProcessed(Event event) {
+
+        if (idempotencyCache.contains(event.getPayload().getId(), event.getTransactionId(), CURRENT_SOURCE))
+            throw new ValidationException("There's another transactionID for this validation.");
     }
 
     private void validateProductInformed(OrderProducts orderProducts) {
@@ -72,11 +79,34 @@ public class ProductValidationService {
             throw new ValidationException("Product must be informed!");
     }
 
-    private void validateExistingProduct(String code) {
+    private void validateExistingProducts(List<OrderProducts> products) {
 
-        if (!productRepository.existsByCode(code))
+        var codes = products
+                .stream()
+                .map(product -> product.getProduct().getCode())
+                .collect(Collectors.toSet());
+
+        if (!productCatalog.findUnknownCodes(codes).isEmpty())
             throw new ValidationException("Product does not exists in database!");
-        
+    }
+
+    /**
+     * The unique key on the order and transaction is the source of truth, a validation already there
+     * means the event was processed before.
+     */
+    private void claimValidation(Event event) {
+
+        var validation = Validation
+                .builder()
+                .orderId(event.getPayload().getId())
+                .transactionId(event.getTransactionId())
+                .success(true)
+                .build();
+
+        if (!validationRepository.insertIfAbsent(validation))
+            throw new ValidationException("There's another transactionID for this validation.");
+
+        idempotencyCache.record(validation.getOrderId(), validation.getTransactionId(), CURRENT_SOURCE);
     }
 
     private void createValidation(Event event, boolean success) {
@@ -116,13 +146,14 @@ public class ProductValidationService {
         addHistory(event, "Fail to validate products: ".concat(message));
     }
 
+    @Transactional
     public void rollBackEvent(Event event) {
 
         changeValidationToFail(event);
         event.setStatus(ESagaStatus.FAIL);
         event.setSource(CURRENT_SOURCE);
         addHistory(event, "Rollback executed on product validation!");
-        kafkaProducer.sendEvent(jsonUtil.toJson(event));
+        outboxService.enqueue(event);
     }
 
     private void changeValidationToFail(Event event) {
@@ -0,0 +1,79 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+
+/**
+ * Events this instance processed recently, bounded in size and age, checked before the database. A
+ * hit is a duplicate without a query. A miss proves nothing, as the event may have been processed
+ * before a restart, by another instance or long enough ago to be evicted, so the service still claims
+ * it with an insert against a unique key, which stays the source of truth.
+ */
+@Component
+public class IdempotencyCache {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, Long> processed = new LinkedHashMap<>();
+
+    public IdempotencyCache(@Value("${idempotency.cache.max-size}") int maxSize,
+                            @Value("${idempotency.cache.ttl-millis}") long ttlMillis) {
+
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public synchronized boolean contains(String orderId, String transactionId, String step) {
+
+        this.evictExpired(System.currentTimeMillis());
+        return this.processed.containsKey(key(orderId, transactionId, step));
+    }
+
+    /**
+     * Records the key once the caller's transaction commits, a rolled back event was not processed.
+     */
+    public void record(String orderId, String transactionId, String step) {
+
+        var key = key(orderId, transactionId, step);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.put(key);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCommit() {
+                put(key);
+            }
+        });
+    }
+
+    private synchronized void put(String key) {
+
+        var now = System.currentTimeMillis();
+        this.processed.remove(key);
+        this.processed.put(key, now);
+
+        if (this.processed.size() > this.maxSize) {
+            var eldest = this.processed.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private void evictExpired(long now) {
+
+        var entries = this.processed.values().iterator();
+        while (entries.hasNext() && entries.next() < now - this.ttlMillis)
+            entries.remove();
+    }
+
+    private static String key(String orderId, String transactionId, String step) {
+        return orderId + ":" + transactionId + ":" + step;
+    }
+}
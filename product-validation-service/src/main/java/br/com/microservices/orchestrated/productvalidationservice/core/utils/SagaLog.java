@@ -0,0 +1,54 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.utils;
+
+import br.com.microservices.orchestrated.productvalidationservice.core.enums.ESagaStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides which sagas are logged in detail and keeps logged payloads under a size cap. Sagas are
+ * sampled on the hash of their order id, so every service keeps the same sagas and a sampled saga is
+ * logged end to end. Failed and compensating hops are always logged.
+ * <p>
+ * A hop is logged or skipped when it runs, before anyone knows whether the saga will fail, so for a saga
+ * that is not sampled this service only logs its failed and compensating hops. The orchestrator keeps
+ * every hop of such a saga until it ends and writes them all if it fails.
+ */
+@Component
+public class SagaLog {
+
+    private static final int SAMPLE_BUCKETS = 10_000;
+
+    @Value(value = "${logging.saga.sample-rate}")
+    private double sampleRate;
+
+    @Value(value = "${logging.saga.payload-max-length}")
+    private int payloadMaxLength;
+
+    public boolean isSampled(String orderId, ESagaStatus status) {
+
+        if (ESagaStatus.FAIL == status || ESagaStatus.ROLLBACK_PENDING == status || orderId == null)
+            return true;
+
+        return Math.floorMod(orderId.hashCode(), SAMPLE_BUCKETS) < this.sampleRate * SAMPLE_BUCKETS;
+    }
+
+    /**
+     * Wraps the payload so it is only rendered, and cut to the cap, when the line is written.
+     */
+    public Object payload(Object payload) {
+        return new TruncatedPayload(payload, this.payloadMaxLength);
+    }
+
+    private record TruncatedPayload(Object payload, int maxLength) {
+
+        @Override
+        public String toString() {
+
+            var text = String.valueOf(this.payload);
+            if (text.length() <= this.maxLength)
+                return text;
+
+            return text.substring(0, this.maxLength) + "... (" + text.length() + " chars)";
+        }
+    }
+}
@@ -1,4 +1,4 @@
-INSERT INTO public.product(id, code) values (1, 'COMIC_BOOKS');
-INSERT INTO public.product(id, code) values (2, 'BOOKS');
-INSERT INTO public.product(id, code) values (3, 'MOVIES');
-INSERT INTO public.product(id, code) values (4, 'MUSIC');
\ No newline at end of file
+INSERT INTO public.product(id, code, updated_at) values (1, 'COMIC_BOOKS', now());
+INSERT INTO public.product(id, code, updated_at) values (2, 'BOOKS', now());
+INSERT INTO public.product(id, code, updated_at) values (3, 'MOVIES', now());
+INSERT INTO public.product(id, code, updated_at) values (4, 'MUSIC', now());
\ No newline at end of file